@@ -0,0 +1,61 @@
+package com.example.githubanalyzer.benchmark;
+
+import com.example.githubanalyzer.client.GitHubClient;
+import com.example.githubanalyzer.service.CrawlPersister;
+import com.example.githubanalyzer.service.GitHubService;
+import com.example.githubanalyzer.service.UserProfileCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The service and persistence beans of the application on an in-memory database migrated by Flyway,
+ * with the GitHub client answered from {@link GitHubFixtures}. No web server, jobs or startup crawl.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@EntityScan(basePackages = "com.example.githubanalyzer.entity")
+@EnableJpaRepositories(basePackages = "com.example.githubanalyzer.repository")
+@Import({GitHubService.class, CrawlPersister.class, UserProfileCache.class})
+class BenchmarkContext {
+
+    /**
+     * @param repos Number of repositories of the fixture organization
+     * @return Started context, each on a database of its own
+     */
+    static ConfigurableApplicationContext start(int repos) {
+        return new SpringApplicationBuilder(BenchmarkContext.class)
+            .web(WebApplicationType.NONE)
+            .run("--benchmark.repos=" + repos,
+                 "--spring.datasource.url=jdbc:h2:mem:benchmark-" + repos + ";DB_CLOSE_DELAY=-1");
+    }
+
+    @Bean(name = "githubCrawlExecutor", destroyMethod = "shutdown")
+    public ExecutorService githubCrawlExecutor() {
+        return Executors.newFixedThreadPool(8);
+    }
+
+    @Bean(name = "githubPrefetchExecutor", destroyMethod = "shutdown")
+    public ExecutorService githubPrefetchExecutor() {
+        return Executors.newSingleThreadExecutor();
+    }
+
+    @Bean
+    public GitHubClient gitHubClient(@Value("${benchmark.repos}") int repos,
+                                     @Qualifier("githubPrefetchExecutor") ExecutorService githubPrefetchExecutor,
+                                     MeterRegistry meterRegistry) {
+        return new GitHubFixtures(repos).client(githubPrefetchExecutor, meterRegistry);
+    }
+}
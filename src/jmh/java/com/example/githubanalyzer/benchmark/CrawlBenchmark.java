@@ -0,0 +1,139 @@
+package com.example.githubanalyzer.benchmark;
+
+import com.example.githubanalyzer.client.GitHubClient;
+import com.example.githubanalyzer.client.GitHubRepo;
+import com.example.githubanalyzer.service.CrawlProgress;
+import com.example.githubanalyzer.service.CrawlRequest;
+import com.example.githubanalyzer.service.CrawlResult;
+import com.example.githubanalyzer.service.GitHubService;
+import com.example.githubanalyzer.service.TopKSelector;
+import com.example.githubanalyzer.service.UserProfileCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Network phase of a crawl against recorded payloads: parsing the repository listing, ranking it,
+ * and the whole crawl of an organization with contributors, profiles and the transformation into
+ * hashed {@link CrawlResult} rows. The GitHub transport is replaced by {@link FixtureHttpClient};
+ * everything above it is the production code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CrawlBenchmark {
+
+    private static final int TOP_REPOS = 5;
+    private static final int TOP_CONTRIBUTORS = 10;
+
+    @Param({"100", "1000", "10000"})
+    private int repos;
+
+    private ExecutorService crawlExecutor;
+    private ExecutorService prefetchExecutor;
+    private GitHubClient client;
+    private GitHubService service;
+    private List<GitHubRepo> parsedRepos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        crawlExecutor = Executors.newFixedThreadPool(8);
+        prefetchExecutor = Executors.newSingleThreadExecutor();
+        client = new GitHubFixtures(repos).client(prefetchExecutor, new SimpleMeterRegistry());
+
+        service = new GitHubService();
+        ReflectionTestUtils.setField(service, "gitHubClient", client);
+        ReflectionTestUtils.setField(service, "crawlExecutor", crawlExecutor);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+
+        parsedRepos = new ArrayList<>();
+        client.getOrgRepoPages(GitHubFixtures.ORG, GitHubFixtures.PER_PAGE, 0).forEachRemaining(parsedRepos::addAll);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        crawlExecutor.shutdownNow();
+        prefetchExecutor.shutdownNow();
+    }
+
+    /**
+     * Stream every page of the repository listing through the client's parser
+     */
+    @Benchmark
+    public void parseRepoPages(Blackhole blackhole) {
+        Iterator<List<GitHubRepo>> pages = client.getOrgRepoPages(GitHubFixtures.ORG, GitHubFixtures.PER_PAGE, 0);
+        while (pages.hasNext()) {
+            blackhole.consume(pages.next());
+        }
+    }
+
+    /**
+     * Rank the listing with the bounded heap the crawl uses
+     */
+    @Benchmark
+    public List<GitHubRepo> rankTopRepos() {
+        TopKSelector<GitHubRepo> selector = new TopKSelector<>(TOP_REPOS, GitHubRepo::stargazersCount);
+        selector.offerAll(parsedRepos);
+        return selector.result();
+    }
+
+    /**
+     * Baseline for {@link #rankTopRepos}: the full comparator sort the bounded heap replaced
+     */
+    @Benchmark
+    public List<GitHubRepo> sortTopRepos() {
+        return parsedRepos.stream()
+            .sorted(Comparator.comparing(GitHubRepo::stargazersCount).reversed())
+            .limit(TOP_REPOS)
+            .toList();
+    }
+
+    /**
+     * Crawl the whole organization, keeping every repository, so contributors, profiles and the
+     * transformation run for all of them
+     */
+    @Benchmark
+    public CrawlResult crawlTopRepos(EmptyProfileCache profiles) {
+        ReflectionTestUtils.setField(service, "userProfileCache", profiles.cache);
+        return service.crawlTopRepos(new CrawlRequest(GitHubFixtures.ORG, repos, repos, TOP_CONTRIBUTORS),
+            CrawlProgress.NONE, false);
+    }
+
+    /**
+     * Every crawl starts with an empty profile cache, so each profile is fetched and parsed once per crawl
+     */
+    @State(Scope.Thread)
+    public static class EmptyProfileCache {
+
+        private UserProfileCache cache;
+
+        @Setup(Level.Invocation)
+        public void create() {
+            cache = new UserProfileCache(60, 100_000);
+        }
+    }
+}
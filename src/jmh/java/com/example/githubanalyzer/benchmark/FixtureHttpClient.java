@@ -0,0 +1,88 @@
+package com.example.githubanalyzer.benchmark;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Answers the GitHub requests of the analyzer from {@link GitHubFixtures} without touching the network,
+ * so the client's parsing and the crawl pipeline are measured on their own. Repository listings are paged
+ * with {@code Link} headers like the real API. No rate limit headers are sent, so requests are never paced.
+ */
+final class FixtureHttpClient extends CloseableHttpClient {
+
+    private final GitHubFixtures fixtures;
+
+    FixtureHttpClient(GitHubFixtures fixtures) {
+        this.fixtures = fixtures;
+    }
+
+    @Override
+    protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context) {
+        UriComponents uri = UriComponentsBuilder.fromUriString(request.getRequestLine().getUri()).build();
+        String[] path = uri.getPath().substring(1).split("/");
+        FixtureResponse response = new FixtureResponse();
+
+        if (path.length == 3 && path[0].equals("orgs") && path[2].equals("repos")) {
+            String page = uri.getQueryParams().getFirst("page");
+            int number = page != null ? Integer.parseInt(page) : 1;
+            response.setEntity(json(fixtures.repoPage(number)));
+            if (number < fixtures.pageCount()) {
+                String next = UriComponentsBuilder.fromUriString(request.getRequestLine().getUri())
+                    .replaceQueryParam("page", number + 1).toUriString();
+                response.addHeader("Link", "<" + next + ">; rel=\"next\"");
+            }
+        } else if (path.length == 4 && path[0].equals("repos") && path[3].equals("contributors")) {
+            int perPage = Integer.parseInt(uri.getQueryParams().getFirst("per_page"));
+            response.setEntity(json(fixtures.contributors(path[1] + "/" + path[2], perPage)));
+        } else if (path.length == 2 && path[0].equals("users")) {
+            response.setEntity(json(fixtures.user(path[1])));
+        } else {
+            response.setStatusCode(HttpStatus.SC_NOT_FOUND);
+            response.setEntity(json("{\"message\":\"Not Found\"}".getBytes()));
+        }
+        return response;
+    }
+
+    private static ByteArrayEntity json(byte[] body) {
+        return new ByteArrayEntity(body, ContentType.APPLICATION_JSON);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    @Deprecated
+    public HttpParams getParams() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    @Deprecated
+    public ClientConnectionManager getConnectionManager() {
+        throw new UnsupportedOperationException();
+    }
+
+    private static final class FixtureResponse extends BasicHttpResponse implements CloseableHttpResponse {
+
+        private FixtureResponse() {
+            super(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.githubanalyzer.benchmark;
+
+import com.example.githubanalyzer.client.ConditionalRequestCache;
+import com.example.githubanalyzer.client.GitHubClient;
+import com.example.githubanalyzer.client.TokenPool;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * GitHub payloads of a synthetic organization, expanded from the recorded repository, contributor and user
+ * payloads in {@code fixtures/}. Every payload keeps all fields of the recording, so parsing skips as much
+ * as it does against the real API. Names, counts and timestamps vary with a fixed seed.
+ */
+final class GitHubFixtures {
+
+    static final String ORG = "apache";
+    static final int PER_PAGE = 100;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ObjectNode repoTemplate = read("repo.json");
+    private final ObjectNode contributorTemplate = read("contributor.json");
+    private final ObjectNode userTemplate = read("user.json");
+
+    private final int repoCount;
+    private final int logins;
+    private final List<byte[]> repoPages = new ArrayList<>();
+    private final ConcurrentHashMap<String, byte[]> contributorLists = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, byte[]> users = new ConcurrentHashMap<>();
+
+    /**
+     * @param repoCount Number of repositories of the organization
+     */
+    GitHubFixtures(int repoCount) {
+        this.repoCount = repoCount;
+        // Contributors overlap across repositories, as they do in a real organization
+        this.logins = Math.max(100, repoCount * 3);
+
+        Random random = new Random(42);
+        for (int from = 0; from < repoCount; from += PER_PAGE) {
+            ArrayNode page = objectMapper.createArrayNode();
+            for (int i = from; i < Math.min(from + PER_PAGE, repoCount); i++) {
+                page.add(repo(i, random));
+            }
+            repoPages.add(bytes(page));
+        }
+    }
+
+    /**
+     * Production client answered from these payloads, without conditional requests or rate limit pacing
+     * @param executor Executor prefetching listing pages
+     * @param meterRegistry Receives the request metrics
+     * @return GitHub client
+     */
+    GitHubClient client(Executor executor, MeterRegistry meterRegistry) {
+        return new GitHubClient(new FixtureHttpClient(this), new ConditionalRequestCache(0, 0),
+            new TokenPool(List.of("benchmark-token"), 100, 0, 60), executor, meterRegistry);
+    }
+
+    int repoCount() {
+        return repoCount;
+    }
+
+    int pageCount() {
+        return repoPages.size();
+    }
+
+    /**
+     * @param page Page number, starting at 1
+     * @return JSON array of up to {@value #PER_PAGE} repositories, most recently updated first
+     */
+    byte[] repoPage(int page) {
+        return repoPages.get(page - 1);
+    }
+
+    /**
+     * @param fullName Repository full name
+     * @param count Number of contributors, most active first
+     * @return JSON array of contributors
+     */
+    byte[] contributors(String fullName, int count) {
+        return contributorLists.computeIfAbsent(fullName + "?" + count, key -> {
+            Random random = new Random(fullName.hashCode());
+            ArrayNode contributors = objectMapper.createArrayNode();
+            Set<Integer> picked = new LinkedHashSet<>();
+            while (picked.size() < Math.min(count, logins)) {
+                picked.add(random.nextInt(logins));
+            }
+            int contributions = 1_000 + random.nextInt(5_000);
+            for (int login : picked) {
+                ObjectNode contributor = contributorTemplate.deepCopy();
+                contributor.put("login", "user-" + login);
+                contributor.put("id", 1_000_000 + login);
+                contributor.put("contributions", contributions);
+                contributions = Math.max(1, contributions - random.nextInt(contributions / 2 + 1));
+                contributors.add(contributor);
+            }
+            return bytes(contributors);
+        });
+    }
+
+    /**
+     * @param login GitHub username
+     * @return JSON user profile
+     */
+    byte[] user(String login) {
+        return users.computeIfAbsent(login, key -> {
+            ObjectNode user = userTemplate.deepCopy();
+            user.put("login", login);
+            user.put("location", "City " + Math.floorMod(login.hashCode(), 200));
+            user.put("company", "Company " + Math.floorMod(login.hashCode(), 50));
+            return bytes(user);
+        });
+    }
+
+    private ObjectNode repo(int index, Random random) {
+        String name = "project-" + index;
+        String fullName = ORG + "/" + name;
+        ObjectNode repo = repoTemplate.deepCopy();
+        repo.put("id", 200_000 + index);
+        repo.put("name", name);
+        repo.put("full_name", fullName);
+        repo.put("html_url", "https://github.com/" + fullName);
+        repo.put("description", "Apache " + name);
+        // Skewed like real star counts: most repositories have few, some have many
+        int stars = (int) Math.min(100_000, Math.exp(random.nextDouble() * 11));
+        repo.put("stargazers_count", stars);
+        repo.put("watchers_count", stars);
+        repo.put("forks_count", stars / 2);
+        repo.put("open_issues_count", random.nextInt(200));
+        repo.put("open_issues", random.nextInt(200));
+        repo.put("pushed_at", String.format("2024-%02d-%02dT12:00:00Z", 12 - index * 12 / (repoCount + 1), 1 + random.nextInt(28)));
+        repo.put("updated_at", repo.get("pushed_at").asText());
+        return repo;
+    }
+
+    private static ObjectNode read(String fixture) {
+        try (InputStream in = GitHubFixtures.class.getResourceAsStream("/fixtures/" + fixture)) {
+            return (ObjectNode) objectMapper.readTree(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] bytes(Object node) {
+        try {
+            return objectMapper.writeValueAsBytes(node);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.githubanalyzer.benchmark;
+
+import com.example.githubanalyzer.repository.ContributorRepository;
+import com.example.githubanalyzer.repository.RepoRepository;
+import com.example.githubanalyzer.service.CrawlPersister;
+import com.example.githubanalyzer.service.CrawlProgress;
+import com.example.githubanalyzer.service.CrawlRequest;
+import com.example.githubanalyzer.service.CrawlResult;
+import com.example.githubanalyzer.service.GitHubService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Database side of a crawl: populating and writing the entities of a crawled organization, the
+ * unchanged-row path of a repeated sync, and the formatted report over the stored rows.
+ * Each repository keeps its ten top contributors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PersistBenchmark {
+
+    private static final int TOP_CONTRIBUTORS = 10;
+
+    @Param({"100", "1000", "10000"})
+    private int repos;
+
+    private ConfigurableApplicationContext context;
+    private GitHubService service;
+    private CrawlPersister persister;
+    private RepoRepository repoRepository;
+    private ContributorRepository contributorRepository;
+    private CrawlResult crawl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(repos);
+        service = context.getBean(GitHubService.class);
+        persister = context.getBean(CrawlPersister.class);
+        repoRepository = context.getBean(RepoRepository.class);
+        contributorRepository = context.getBean(ContributorRepository.class);
+
+        crawl = service.crawlTopRepos(new CrawlRequest(GitHubFixtures.ORG, repos, repos, TOP_CONTRIBUTORS),
+            CrawlProgress.NONE, false);
+        persister.persist(crawl);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Insert every repository and contributor of the crawl into empty tables
+     */
+    @Benchmark
+    public CrawlPersister.Result persistNewCrawl(EmptyTables tables) {
+        return persister.persist(crawl);
+    }
+
+    /**
+     * Sync the same crawl again: rows are looked up and compared by content hash, nothing is written
+     */
+    @Benchmark
+    public CrawlPersister.Result persistUnchangedCrawl() {
+        return persister.persist(crawl);
+    }
+
+    /**
+     * Format the report of every stored repository and contributor
+     */
+    @Benchmark
+    public String formatReport() {
+        return service.getFormattedRepoAndContributorInfo();
+    }
+
+    /**
+     * Empties both tables before every insert
+     */
+    @State(Scope.Thread)
+    public static class EmptyTables {
+
+        @Setup(Level.Invocation)
+        public void clear(PersistBenchmark benchmark) {
+            benchmark.contributorRepository.deleteAllInBatch();
+            benchmark.repoRepository.deleteAllInBatch();
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.githubanalyzer;
 
-import com.example.githubanalyzer.entity.RepoEntity;
+import com.example.githubanalyzer.service.CrawlJob;
+import com.example.githubanalyzer.service.CrawlJobService;
+import com.example.githubanalyzer.service.CrawlRequest;
+import com.example.githubanalyzer.service.CrawlStage;
 import com.example.githubanalyzer.service.GitHubService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,6 +12,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 @SpringBootApplication
 public class GithubanalyzerApplication implements CommandLineRunner {
@@ -16,9 +20,11 @@ public class GithubanalyzerApplication implements CommandLineRunner {
     private static final Logger logger = LoggerFactory.getLogger(GithubanalyzerApplication.class);
 
     private final GitHubService gitHubService;
+    private final CrawlJobService crawlJobService;
 
-    public GithubanalyzerApplication(GitHubService gitHubService) {
+    public GithubanalyzerApplication(GitHubService gitHubService, CrawlJobService crawlJobService) {
         this.gitHubService = gitHubService;
+        this.crawlJobService = crawlJobService;
     }
 
     public static void main(String[] args) {
@@ -28,12 +34,22 @@ public class GithubanalyzerApplication implements CommandLineRunner {
     @Override
     public void run(String... args) throws Exception {
         logger.info("Starting GitHub Analyzer application");
-        logger.info("Fetching top Apache repositories from GitHub...");
+        logger.info("Fetching top repositories of {} from GitHub...", gitHubService.getOrgs());
 
         try {
-            // Fetch and save top Apache repositories and their contributors
-            List<RepoEntity> topRepos = gitHubService.fetchAndSaveTopApacheRepos();
-            logger.info("Successfully fetched and saved {} repositories", topRepos.size());
+            // Fetch and save top repositories and their contributors, one parallel job per organization
+            List<CrawlRequest> requests = gitHubService.getOrgs().stream()
+                .map(org -> gitHubService.crawlRequest(org, null, null, null))
+                .collect(Collectors.toList());
+            for (CrawlJob job : crawlJobService.submitFetchAndSave(requests)) {
+                job.awaitFinished();
+                CrawlJob.Status status = job.getStatus();
+                if (status.stage() == CrawlStage.COMPLETED) {
+                    logger.info("Successfully fetched and saved {} repositories of {}", status.repositories().size(), status.org());
+                } else {
+                    logger.error("Crawl of {} failed: {}", status.org(), status.error());
+                }
+            }
 
             // Display formatted repository and contributor information
             String formattedInfo = gitHubService.getFormattedRepoAndContributorInfo();
@@ -0,0 +1,128 @@
+package com.example.githubanalyzer.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of GitHub responses keyed by request URL, remembering the ETag and
+ * Last-Modified validators so repeated requests can be sent conditionally.
+ * A 304 Not Modified answer is served from the cached body and does not count against the rate limit.
+ * Only a 304 counts as a hit: a request sent with validators whose resource changed is a miss.
+ * Listing pages, which hold up to 100 parsed elements each, have a much smaller bound of their own than
+ * single resources such as user profiles, so a large crawl cannot fill the heap with old pages.
+ */
+@Component
+public class ConditionalRequestCache implements MeterBinder {
+
+    private final Map<String, Entry> entries;
+    private final Map<String, Entry> listingEntries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxEntries Number of single resources kept
+     * @param maxListingEntries Number of listing pages kept
+     */
+    public ConditionalRequestCache(@Value("${github.http.etag-cache-size:10000}") int maxEntries,
+                                   @Value("${github.http.etag-cache-listing-size:200}") int maxListingEntries) {
+        this.entries = lru(maxEntries);
+        this.listingEntries = lru(maxListingEntries);
+    }
+
+    private static Map<String, Entry> lru(int maxEntries) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Look up the cached response for a URL. Whether it is a hit is only known once GitHub answers,
+     * see {@link #recordHit()} and {@link #recordMiss()}.
+     * @param url Request URL
+     * @return Cached entry or null when the URL has not been seen yet
+     */
+    public Entry lookup(String url) {
+        synchronized (entries) {
+            Entry entry = listingEntries.get(url);
+            return entry != null ? entry : entries.get(url);
+        }
+    }
+
+    /**
+     * Remember a successful response if it carries at least one validator
+     * @param url Request URL
+     * @param etag ETag header value, may be null
+     * @param lastModified Last-Modified header value, may be null
+     * @param body Parsed response body, must not be modified once cached
+     * @param nextUrl Next page link of a paginated response, may be null
+     * @param listing True for a page of a listing, kept within the smaller listing bound
+     */
+    public void store(String url, String etag, String lastModified, Object body, String nextUrl, boolean listing) {
+        if (etag == null && lastModified == null) {
+            return;
+        }
+        synchronized (entries) {
+            (listing ? listingEntries : entries).put(url, new Entry(etag, lastModified, body, nextUrl));
+        }
+    }
+
+    /**
+     * Record that a conditional request was answered with 304 Not Modified and served from the cache
+     */
+    public void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    /**
+     * Record that a conditional request needed a full response, because the URL was not cached or had changed
+     */
+    public void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size() + listingEntries.size();
+        }
+        return new Stats(hits.get(), misses.get(), size);
+    }
+
+    /**
+     * Export the counters as the standard cache metrics; every hit is a 304 that saved a rate limit point
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+            .tags("cache", "github-conditional", "result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+            .tags("cache", "github-conditional", "result", "miss").register(registry);
+        Gauge.builder("cache.size", this, cache -> cache.getStats().entries())
+            .tag("cache", "github-conditional").register(registry);
+    }
+
+    /**
+     * Cached validators, parsed body and next page link of a response.
+     * Keeping the parsed body means a 304 is served without parsing the payload again.
+     */
+    public record Entry(String etag, String lastModified, Object body, String nextUrl) {
+    }
+
+    /**
+     * Cache counters. Hits are requests GitHub answered with 304, misses are requests that got a full response.
+     */
+    public record Stats(long hits, long misses, int entries) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.githubanalyzer.client;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the GitHub API answers with an error status
+ */
+public class GitHubApiException extends IOException {
+
+    private final int statusCode;
+    private final boolean rateLimited;
+
+    public GitHubApiException(String url, int statusCode, String responseBody) {
+        this(url, statusCode, responseBody, false);
+    }
+
+    /**
+     * @param rateLimited Whether GitHub was still throttling the request when the retries ran out
+     */
+    public GitHubApiException(String url, int statusCode, String responseBody, boolean rateLimited) {
+        super("GitHub API returned " + statusCode + " for " + url + ": " + responseBody);
+        this.statusCode = statusCode;
+        this.rateLimited = rateLimited;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public boolean isRateLimited() {
+        return rateLimited;
+    }
+}
@@ -1,79 +1,416 @@
 package com.example.githubanalyzer.client;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Component
 public class GitHubClient {
 
-    @Value("${github.api.token}")
-    private String token;
+    @Value("${github.api.base-url:https://api.github.com}")
+    private String apiBaseUrl = "https://api.github.com";
 
-    private static final String API_BASE_URL = "https://api.github.com";
-    private static final String APACHE_ORG = "apache";
+    private static final int MAX_PER_PAGE = 100;
+    private static final int MAX_GRAPHQL_USERS = 100;
+    private static final String RATE_LIMIT_LIMIT = "X-RateLimit-Limit";
+    private static final String RATE_LIMIT_REMAINING = "X-RateLimit-Remaining";
+    private static final String RATE_LIMIT_RESET = "X-RateLimit-Reset";
+    private static final String RATE_LIMIT_RESOURCE = "X-RateLimit-Resource";
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final Pattern NEXT_LINK = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"next\"");
+
+    // Endpoint tags of the request metrics
+    private static final String REPOS = "repos";
+    private static final String CONTRIBUTORS = "contributors";
+    private static final String USERS = "users";
+    private static final String GRAPHQL = "graphql";
+    private static final String SEARCH = "search";
+    private static final Set<String> LISTINGS = Set.of(REPOS, CONTRIBUTORS);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectReader repoReader = objectMapper.readerFor(GitHubRepo.class);
+    private final ObjectReader contributorReader = objectMapper.readerFor(GitHubContributor.class);
+    private final ObjectReader userReader = objectMapper.readerFor(GitHubUser.class);
+
+    private final CloseableHttpClient httpClient;
+    private final ConditionalRequestCache conditionalRequestCache;
+    private final TokenPool tokenPool;
+    private final Executor prefetchExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> requestsInFlight = new LinkedHashMap<>();
+
+    public GitHubClient(CloseableHttpClient httpClient,
+                        ConditionalRequestCache conditionalRequestCache,
+                        TokenPool tokenPool,
+                        @Qualifier("githubPrefetchExecutor") Executor prefetchExecutor,
+                        MeterRegistry meterRegistry) {
+        this.httpClient = httpClient;
+        this.conditionalRequestCache = conditionalRequestCache;
+        this.tokenPool = tokenPool;
+        this.prefetchExecutor = prefetchExecutor;
+        this.meterRegistry = meterRegistry;
+        for (String endpoint : List.of(REPOS, CONTRIBUTORS, USERS, GRAPHQL, SEARCH)) {
+            AtomicInteger inFlight = new AtomicInteger();
+            requestsInFlight.put(endpoint, inFlight);
+            Gauge.builder("github.api.requests.active", inFlight, AtomicInteger::get)
+                .description("GitHub API requests waiting for their response")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        }
+    }
 
     /**
-     * Get recently updated repositories from Apache organization
-     * @param perPage Number of repositories to fetch per page
-     * @return JSON response from GitHub API
+     * Iterate over the repositories of an organization, most recently updated first,
+     * following the pagination links page by page
+     * @param org Organization login
+     * @param perPage Number of repositories per page, at most 100
+     * @param maxPages Maximum number of pages to fetch, 0 or less fetches the whole organization
+     * @return Iterator over the repositories of each page
      */
-    public String getApacheRepos(int perPage) throws Exception {
-        String url = API_BASE_URL + "/orgs/" + APACHE_ORG + "/repos?sort=updated&direction=desc&per_page=" + perPage;
-        return executeGetRequest(url);
+    public Iterator<List<GitHubRepo>> getOrgRepoPages(String org, int perPage, int maxPages) {
+        String url = apiBaseUrl + "/orgs/" + org + "/repos?sort=updated&direction=desc&per_page="
+                     + Math.min(perPage, MAX_PER_PAGE);
+        return new PageIterator<>(pageUrl -> executeGetRequest(pageUrl, REPOS, content -> readAll(repoReader.readValues(content))),
+                                  url, maxPages, prefetchExecutor);
     }
 
     /**
      * Get contributors for a repository
-     * @param repoName Repository name
+     * @param fullName Repository full name, e.g. apache/commons-lang
      * @param perPage Number of contributors to fetch per page
-     * @return JSON response from GitHub API
+     * @return Contributors, most active first
      */
-    public String getRepoContributors(String repoName, int perPage) throws Exception {
-        String url = API_BASE_URL + "/repos/" + APACHE_ORG + "/" + repoName + "/contributors?per_page=" + perPage;
-        return executeGetRequest(url);
+    public List<GitHubContributor> getRepoContributors(String fullName, int perPage) throws Exception {
+        String url = apiBaseUrl + "/repos/" + fullName + "/contributors?per_page=" + perPage;
+        return executeGetRequest(url, CONTRIBUTORS, content -> readAll(contributorReader.<GitHubContributor>readValues(content))).body();
     }
 
     /**
-     * Get user information
+     * Get user information. A user that was deleted or renamed since it contributed gets a profile with
+     * only the login set, as in {@link #getUsersInfo}.
      * @param username GitHub username
-     * @return JSON response from GitHub API
+     * @return User profile
      */
-    public String getUserInfo(String username) throws Exception {
-        String url = API_BASE_URL + "/users/" + username;
-        return executeGetRequest(url);
+    public GitHubUser getUserInfo(String username) throws Exception {
+        String url = apiBaseUrl + "/users/" + username;
+        try {
+            return executeGetRequest(url, USERS, content -> userReader.<GitHubUser>readValue(content)).body();
+        } catch (GitHubApiException e) {
+            if (e.getStatusCode() != HttpStatus.SC_NOT_FOUND) {
+                throw e;
+            }
+            return new GitHubUser(username, null, null);
+        }
     }
 
     /**
-     * Execute a GET request to the GitHub API
+     * Get the profiles of many users in one GraphQL request, each login bound to its own aliased
+     * {@code user} field. Costs a single request and rate limit point instead of one REST call per login.
+     * Logins GitHub does not resolve to a user, such as bots, get a profile with only the login set.
+     * @param logins GitHub usernames, at most 100
+     * @return Profiles by login, one for every requested login
+     */
+    public Map<String, GitHubUser> getUsersInfo(List<String> logins) throws Exception {
+        if (logins.size() > MAX_GRAPHQL_USERS) {
+            throw new IllegalArgumentException("At most " + MAX_GRAPHQL_USERS + " logins per GraphQL request");
+        }
+        if (logins.isEmpty()) {
+            return Map.of();
+        }
+
+        // Logins are passed as variables, never spliced into the query text
+        StringBuilder declarations = new StringBuilder();
+        StringBuilder selections = new StringBuilder();
+        Map<String, Object> variables = new LinkedHashMap<>();
+        for (int i = 0; i < logins.size(); i++) {
+            declarations.append(i == 0 ? "" : ", ").append("$l").append(i).append(": String!");
+            selections.append(" u").append(i).append(": user(login: $l").append(i).append(") { login location company }");
+            variables.put("l" + i, logins.get(i));
+        }
+        String query = "query(" + declarations + ") {" + selections + " }";
+        byte[] payload = objectMapper.writeValueAsBytes(Map.of("query", query, "variables", variables));
+
+        String url = apiBaseUrl + "/graphql";
+        JsonNode response = executeRequest(url, GRAPHQL, () -> {
+            HttpPost request = new HttpPost(url);
+            request.addHeader("Accept", "application/json");
+            request.setEntity(new ByteArrayEntity(payload, ContentType.APPLICATION_JSON));
+            return request;
+        }, false, objectMapper::readTree, GitHubClient::isGraphQLRateLimited).body();
+
+        JsonNode data = response.path("data");
+        if (!data.isObject()) {
+            throw new GitHubApiException(url, HttpStatus.SC_OK, response.path("errors").toString());
+        }
+        Map<String, GitHubUser> users = new LinkedHashMap<>();
+        for (int i = 0; i < logins.size(); i++) {
+            JsonNode user = data.path("u" + i);
+            users.put(logins.get(i), user.isObject()
+                ? objectMapper.treeToValue(user, GitHubUser.class)
+                : new GitHubUser(logins.get(i), null, null));
+        }
+        return users;
+    }
+
+    /**
+     * Execute a GET request to the GitHub API over the shared connection pool.
+     * The response is parsed straight from the body stream, without materializing it as a String.
+     * Requests for URLs seen before are sent conditionally and a 304 is answered from the cache.
+     * Every request is sent with the least loaded token of the pool once its rate limit scheduler allows it.
+     * A request GitHub throttles parks that token and is retried, with another token when one is available.
+     * Fully consuming the entity returns the connection to the pool for reuse.
      * @param url API endpoint URL
-     * @return JSON response from GitHub API
+     * @param endpoint Endpoint tag of the request metrics
+     * @param parser Parser for the response body
+     * @return Parsed response and next page URL
      */
-    private String executeGetRequest(String url) throws Exception {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
+    private <T> GitHubPage<T> executeGetRequest(String url, String endpoint, BodyParser<T> parser) throws Exception {
+        return executeRequest(url, endpoint, () -> {
             HttpGet request = new HttpGet(url);
-            request.addHeader("Authorization", "token " + token);
             request.addHeader("Accept", "application/vnd.github.v3+json");
+            return request;
+        }, true, parser, body -> false);
+    }
 
-            try (CloseableHttpResponse response = client.execute(request)) {
-                return EntityUtils.toString(response.getEntity());
+    /**
+     * Send a request built fresh for every attempt with the token, rate limit and retry handling
+     * described on {@link #executeGetRequest}. Every attempt is timed by endpoint and status code, from sending
+     * the request until its body is read; the wait for the rate limit scheduler is not included.
+     * @param url API endpoint URL
+     * @param endpoint Endpoint tag of the request metrics
+     * @param requestFactory Creates the request without authorization
+     * @param conditional Send the request conditionally and cache its response by URL
+     * @param parser Parser for the response body
+     * @param rateLimited Detects a successful response whose body reports a rate limit, retried like a throttled one
+     * @return Parsed response and next page URL
+     */
+    private <T> GitHubPage<T> executeRequest(String url, String endpoint, Supplier<HttpRequestBase> requestFactory,
+                                             boolean conditional, BodyParser<T> parser,
+                                             Predicate<? super T> rateLimited) throws Exception {
+        ConditionalRequestCache.Entry cached = conditional ? conditionalRequestCache.lookup(url) : null;
+        boolean revalidate = false;
+
+        for (int attempt = 0; ; attempt++) {
+            TokenPool.PooledToken token = tokenPool.acquire();
+            RateLimitScheduler rateLimitScheduler = token.scheduler();
+
+            HttpRequestBase request = requestFactory.get();
+            request.addHeader("Authorization", "token " + token.value());
+            if (cached != null) {
+                if (cached.etag() != null) {
+                    request.addHeader(HttpHeaders.IF_NONE_MATCH, cached.etag());
+                }
+                if (cached.lastModified() != null) {
+                    request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified());
+                }
+            }
+            if (revalidate) {
+                request.addHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            }
+
+            AtomicInteger inFlight = requestsInFlight.get(endpoint);
+            inFlight.incrementAndGet();
+            long start = System.nanoTime();
+            String outcome = "IO_ERROR";
+            try (CloseableHttpResponse response = httpClient.execute(request)) {
+                int status = response.getStatusLine().getStatusCode();
+                outcome = Integer.toString(status);
+                HttpEntity entity = response.getEntity();
+                // GraphQL and search have budgets of their own, only the core budget paces the scheduler
+                String resource = headerValue(response, RATE_LIMIT_RESOURCE);
+                if (resource == null || "core".equals(resource)) {
+                    rateLimitScheduler.update(longHeader(response, RATE_LIMIT_LIMIT), longHeader(response, RATE_LIMIT_REMAINING),
+                                              longHeader(response, RATE_LIMIT_RESET));
+                }
+
+                if (status == HttpStatus.SC_NOT_MODIFIED) {
+                    EntityUtils.consume(entity);
+                    if (cached != null) {
+                        conditionalRequestCache.recordHit();
+                        @SuppressWarnings("unchecked")
+                        T body = (T) cached.body();
+                        return new GitHubPage<>(body, cached.nextUrl());
+                    }
+                    // Nothing cached to serve: ask once more without validators, bypassing caches on the way
+                    if (!revalidate) {
+                        revalidate = true;
+                        continue;
+                    }
+                    throw new GitHubApiException(url, status, "Not Modified without a cached response");
+                }
+
+                if (status >= HttpStatus.SC_BAD_REQUEST) {
+                    String error = entity != null ? EntityUtils.toString(entity, StandardCharsets.UTF_8) : "";
+                    boolean throttled = isRateLimited(response, status, error);
+                    if (throttled) {
+                        rateLimitScheduler.backOff(longHeader(response, HttpHeaders.RETRY_AFTER));
+                        if (attempt < tokenPool.getMaxRetries()) {
+                            continue;
+                        }
+                    }
+                    throw new GitHubApiException(url, status, error, throttled);
+                }
+
+                T body;
+                try (InputStream content = entity != null ? entity.getContent() : InputStream.nullInputStream()) {
+                    body = parser.parse(content);
+                }
+                if (rateLimited.test(body)) {
+                    rateLimitScheduler.backOff(longHeader(response, HttpHeaders.RETRY_AFTER));
+                    if (attempt < tokenPool.getMaxRetries()) {
+                        continue;
+                    }
+                    throw new GitHubApiException(url, status, String.valueOf(body));
+                }
+                String nextUrl = nextPageUrl(headerValue(response, "Link"));
+                if (conditional && status == HttpStatus.SC_OK) {
+                    conditionalRequestCache.recordMiss();
+                    conditionalRequestCache.store(url, headerValue(response, HttpHeaders.ETAG),
+                                                  headerValue(response, HttpHeaders.LAST_MODIFIED), body, nextUrl,
+                                                  LISTINGS.contains(endpoint));
+                }
+                return new GitHubPage<>(body, nextUrl);
+            } finally {
+                inFlight.decrementAndGet();
+                Timer.builder("github.api.requests")
+                    .description("GitHub API requests by endpoint and response status")
+                    .tag("endpoint", endpoint)
+                    .tag("status", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             }
         }
     }
 
+    /**
+     * A 429, or a 403 for a used-up primary budget or a secondary rate limit, as opposed to a permission error
+     */
+    private static boolean isRateLimited(HttpResponse response, int status, String error) {
+        if (status == HTTP_TOO_MANY_REQUESTS) {
+            return true;
+        }
+        return status == HttpStatus.SC_FORBIDDEN
+               && ("0".equals(headerValue(response, RATE_LIMIT_REMAINING))
+                   || response.containsHeader(HttpHeaders.RETRY_AFTER)
+                   || error.toLowerCase(Locale.ROOT).contains("rate limit"));
+    }
+
+    /**
+     * GraphQL reports a used-up budget with 200 and an error of type RATE_LIMITED rather than with a 403
+     */
+    private static boolean isGraphQLRateLimited(JsonNode response) {
+        for (JsonNode error : response.path("errors")) {
+            if ("RATE_LIMITED".equals(error.path("type").asText())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Read every element of a JSON array one at a time. An empty body, as sent with 204 No Content, yields an empty list.
+     */
+    private static <T> List<T> readAll(MappingIterator<T> elements) throws IOException {
+        try (elements) {
+            return List.copyOf(elements.readAll());
+        }
+    }
+
+    /**
+     * Extract the rel="next" target from a Link header
+     * @param linkHeader Link header value, may be null
+     * @return Next page URL or null on the last page
+     */
+    static String nextPageUrl(String linkHeader) {
+        if (linkHeader == null) {
+            return null;
+        }
+        Matcher matcher = NEXT_LINK.matcher(linkHeader);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static String headerValue(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+
+    private static Long longHeader(HttpResponse response, String name) {
+        String value = headerValue(response, name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Counters of the conditional request cache
+     * @return Hit (304) and miss counts and number of cached entries
+     */
+    public ConditionalRequestCache.Stats getConditionalCacheStats() {
+        return conditionalRequestCache.getStats();
+    }
+
+    /**
+     * Rate limit budget and pacing of each access token
+     * @return Per-token budget from the latest response and scheduler wait counters
+     */
+    public List<TokenPool.TokenStats> getRateLimitStats() {
+        return tokenPool.getStats();
+    }
+
     /**
      * Legacy method for backward compatibility
      */
     public String getJson(String query) throws Exception {
         String encodedQuery = URLEncoder.encode(query, StandardCharsets.UTF_8);
-        String url = API_BASE_URL + "/search/repositories?q=" + encodedQuery + "&sort=stars&per_page=5";
-        return executeGetRequest(url);
+        String url = apiBaseUrl + "/search/repositories?q=" + encodedQuery + "&sort=stars&per_page=5";
+        return executeGetRequest(url, SEARCH, content -> new String(content.readAllBytes(), StandardCharsets.UTF_8)).body();
+    }
+
+    @FunctionalInterface
+    private interface BodyParser<T> {
+        T parse(InputStream content) throws IOException;
     }
 }
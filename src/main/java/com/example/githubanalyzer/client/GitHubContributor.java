@@ -0,0 +1,10 @@
+package com.example.githubanalyzer.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * The fields of a GitHub contributor payload used by the analyzer
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record GitHubContributor(String login, Integer contributions) {
+}
@@ -0,0 +1,9 @@
+package com.example.githubanalyzer.client;
+
+/**
+ * A single page of a paginated GitHub listing
+ * @param body Parsed body of the page
+ * @param nextUrl URL of the next page from the Link header, null on the last page
+ */
+public record GitHubPage<T>(T body, String nextUrl) {
+}
@@ -0,0 +1,28 @@
+package com.example.githubanalyzer.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The fields of a GitHub repository payload used by the analyzer. All other fields are skipped while parsing.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record GitHubRepo(
+    String name,
+    @JsonProperty("full_name") String fullName,
+    String description,
+    @JsonProperty("html_url") String htmlUrl,
+    @JsonProperty("stargazers_count") Integer stargazersCount,
+    @JsonProperty("watchers_count") Integer watchersCount,
+    @JsonProperty("forks_count") Integer forksCount,
+    String language,
+    @JsonProperty("open_issues_count") Integer openIssuesCount,
+    @JsonProperty("open_issues") Integer openIssues,
+    License license,
+    @JsonProperty("pushed_at") String pushedAt,
+    @JsonProperty("updated_at") String updatedAt) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record License(String name) {
+    }
+}
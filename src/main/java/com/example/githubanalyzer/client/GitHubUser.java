@@ -0,0 +1,10 @@
+package com.example.githubanalyzer.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * The fields of a GitHub user profile used by the analyzer
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record GitHubUser(String login, String location, String company) {
+}
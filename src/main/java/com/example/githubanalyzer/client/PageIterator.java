@@ -0,0 +1,73 @@
+package com.example.githubanalyzer.client;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Iterates over the pages of a paginated GitHub listing by following the {@code Link: rel="next"} header.
+ * While the caller processes one page the next one is already being fetched, so only
+ * the current and the next page are held in memory.
+ */
+public class PageIterator<T> implements Iterator<T> {
+
+    private final PageFetcher<T> fetcher;
+    private final Executor prefetchExecutor;
+    private final int maxPages;
+
+    private CompletableFuture<GitHubPage<T>> pending;
+    private int pagesReturned;
+
+    /**
+     * @param fetcher Fetches a single page
+     * @param firstUrl URL of the first page
+     * @param maxPages Maximum number of pages to fetch, 0 or less follows every next link
+     * @param prefetchExecutor Executor fetching the next page in the background
+     */
+    PageIterator(PageFetcher<T> fetcher, String firstUrl, int maxPages, Executor prefetchExecutor) {
+        this.fetcher = fetcher;
+        this.prefetchExecutor = prefetchExecutor;
+        this.maxPages = maxPages;
+        this.pending = fetchAsync(firstUrl);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return pending != null;
+    }
+
+    /**
+     * Get the body of the next page and start prefetching the one after it
+     * @return Parsed body of the page
+     * @throws CompletionException if the page could not be fetched
+     */
+    @Override
+    public T next() {
+        if (pending == null) {
+            throw new NoSuchElementException();
+        }
+        GitHubPage<T> page = pending.join();
+        pagesReturned++;
+
+        boolean withinLimit = maxPages <= 0 || pagesReturned < maxPages;
+        pending = page.nextUrl() != null && withinLimit ? fetchAsync(page.nextUrl()) : null;
+        return page.body();
+    }
+
+    private CompletableFuture<GitHubPage<T>> fetchAsync(String url) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetcher.fetch(url);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, prefetchExecutor);
+    }
+
+    @FunctionalInterface
+    interface PageFetcher<T> {
+        GitHubPage<T> fetch(String url) throws Exception;
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.githubanalyzer.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Paces the GitHub requests of one token so its rate limit budget lasts until the window resets.
+ * The budget is read from the {@code X-RateLimit-*} headers of every response and spread evenly over
+ * the rest of the window by a token bucket, which still allows short bursts.
+ * When GitHub throttles a request, every caller waits until {@code Retry-After} or the reset time.
+ */
+public class RateLimitScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitScheduler.class);
+
+    private final int burst;
+    private final long secondaryBackoffMillis;
+    private final LongSupplier clock;
+    private final Sleeper sleeper;
+
+    // Budget from the latest response headers, -1 while unknown
+    private long limit = -1;
+    private long remaining = -1;
+    private long resetAtMillis;
+    private long blockedUntilMillis;
+
+    // Token bucket, may go negative while callers are waiting for reserved tokens
+    private double tokens;
+    private long refilledAtMillis;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong delayedRequests = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong throttledResponses = new AtomicLong();
+
+    /**
+     * @param burst Number of requests that may be sent back to back before pacing starts
+     * @param secondaryBackoff Wait after a secondary rate limit response without Retry-After
+     * @param clock Wall clock in epoch milliseconds, the reset header is an epoch timestamp
+     * @param sleeper Waits for the given number of milliseconds
+     */
+    RateLimitScheduler(int burst, Duration secondaryBackoff, LongSupplier clock, Sleeper sleeper) {
+        this.burst = Math.max(1, burst);
+        this.secondaryBackoffMillis = secondaryBackoff.toMillis();
+        this.clock = clock;
+        this.sleeper = sleeper;
+        this.tokens = this.burst;
+        this.refilledAtMillis = clock.getAsLong();
+    }
+
+    /**
+     * Wait until the next request may be sent and take one unit of the budget
+     * @return Milliseconds waited
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public long acquire() throws InterruptedException {
+        long waitMillis = reserve();
+        if (waitMillis > 0) {
+            sleeper.sleep(waitMillis);
+        }
+        return waitMillis;
+    }
+
+    /**
+     * Take one unit of the budget without waiting for it
+     * @return Milliseconds the caller must wait before sending the request
+     */
+    long reserve() {
+        long waitMillis;
+        synchronized (this) {
+            long now = clock.getAsLong();
+            waitMillis = Math.max(0, reserveAt(now) - now);
+        }
+        requests.incrementAndGet();
+        if (waitMillis > 0) {
+            delayedRequests.incrementAndGet();
+            totalWaitMillis.addAndGet(waitMillis);
+        }
+        return waitMillis;
+    }
+
+    /**
+     * Take the budget reported by a response. Null values are headers the response did not carry.
+     * @param limit X-RateLimit-Limit
+     * @param remaining X-RateLimit-Remaining
+     * @param resetEpochSeconds X-RateLimit-Reset
+     */
+    public synchronized void update(Long limit, Long remaining, Long resetEpochSeconds) {
+        if (limit != null) {
+            this.limit = limit;
+        }
+        if (remaining != null) {
+            this.remaining = remaining;
+        }
+        if (resetEpochSeconds != null) {
+            this.resetAtMillis = resetEpochSeconds * 1000;
+        }
+    }
+
+    /**
+     * Block all requests after GitHub throttled one: until Retry-After when given, until the reset time
+     * when the budget is used up, and for the secondary back-off otherwise
+     * @param retryAfterSeconds Retry-After header, null when absent
+     * @return Milliseconds until requests are allowed again
+     */
+    public synchronized long backOff(Long retryAfterSeconds) {
+        throttledResponses.incrementAndGet();
+        long now = clock.getAsLong();
+        long until;
+        if (retryAfterSeconds != null) {
+            until = now + retryAfterSeconds * 1000;
+        } else if (remaining == 0 && resetAtMillis > now) {
+            until = resetAtMillis;
+        } else {
+            until = now + secondaryBackoffMillis;
+        }
+        blockedUntilMillis = Math.max(blockedUntilMillis, until);
+        logger.warn("GitHub rate limit hit, holding requests for {} ms", blockedUntilMillis - now);
+        return blockedUntilMillis - now;
+    }
+
+    /**
+     * @return Milliseconds until the budget is available again, 0 unless used up or throttled
+     */
+    synchronized long parkedMillis() {
+        long now = clock.getAsLong();
+        return earliestStart(now) - now;
+    }
+
+    public synchronized Stats getStats() {
+        long now = clock.getAsLong();
+        long start = earliestStart(now);
+        double rate = refillRatePerMilli(start);
+        double available = start > refilledAtMillis ? Math.min(burst, tokens + (start - refilledAtMillis) * rate) : tokens;
+        long pacingMillis = available >= 1 ? 0 : (long) Math.ceil((1 - available) / rate);
+        return new Stats(limit, remaining, resetAtMillis / 1000, start + pacingMillis - now,
+                         requests.get(), delayedRequests.get(), totalWaitMillis.get(), throttledResponses.get());
+    }
+
+    /**
+     * Reserve a token and return the time at which the request may be sent
+     */
+    private long reserveAt(long now) {
+        long start = earliestStart(now);
+        if (resetAtMillis > 0 && start >= resetAtMillis) {
+            // A new window starts with the full budget, pacing resumes with the next response headers
+            remaining = limit;
+            resetAtMillis = 0;
+        }
+
+        double rate = refillRatePerMilli(start);
+        if (start > refilledAtMillis) {
+            tokens = Math.min(burst, tokens + (start - refilledAtMillis) * rate);
+            refilledAtMillis = start;
+        }
+        tokens -= 1;
+        if (remaining > 0) {
+            remaining--;
+        }
+        return tokens >= 0 ? start : start + (long) Math.ceil(-tokens / rate);
+    }
+
+    /**
+     * Earliest time a request may be sent regardless of pacing
+     */
+    private long earliestStart(long now) {
+        long start = Math.max(now, blockedUntilMillis);
+        if (remaining == 0 && resetAtMillis > start) {
+            start = resetAtMillis;
+        }
+        return start;
+    }
+
+    /**
+     * Remaining budget spread over the rest of the window, unlimited while the budget is unknown
+     */
+    private double refillRatePerMilli(long at) {
+        if (remaining < 0 || resetAtMillis <= at) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return (double) remaining / (resetAtMillis - at);
+    }
+
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    /**
+     * Rate limit budget and scheduler counters. Limit and remaining are -1 until GitHub reported them.
+     * @param waitMillis Time a request sent now would wait
+     */
+    public record Stats(long limit, long remaining, long resetEpochSeconds, long waitMillis,
+                        long requests, long delayedRequests, long totalWaitMillis, long throttledResponses) {
+    }
+}
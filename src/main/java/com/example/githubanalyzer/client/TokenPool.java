@@ -0,0 +1,168 @@
+package com.example.githubanalyzer.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Spreads GitHub requests over several access tokens, each with its own rate limit budget.
+ * Every request goes to the token with the most remaining budget. A token whose budget is used up,
+ * or that GitHub throttled, is parked until its reset time while the other tokens keep serving requests.
+ */
+@Component
+public class TokenPool implements MeterBinder {
+
+    private final List<PooledToken> tokens;
+    private final int maxRetries;
+    private final RateLimitScheduler.Sleeper sleeper;
+
+    @Autowired
+    public TokenPool(@Value("${github.api.tokens:${github.api.token}}") List<String> tokens,
+                     @Value("${github.ratelimit.burst:100}") int burst,
+                     @Value("${github.ratelimit.max-retries:3}") int maxRetries,
+                     @Value("${github.ratelimit.secondary-backoff-seconds:60}") long secondaryBackoffSeconds) {
+        this(tokens, maxRetries, () -> new RateLimitScheduler(burst, Duration.ofSeconds(secondaryBackoffSeconds),
+                                                              System::currentTimeMillis, Thread::sleep), Thread::sleep);
+    }
+
+    /**
+     * @param tokens Access tokens, blank entries are ignored
+     * @param maxRetries Number of times a throttled request is retried
+     * @param schedulerFactory Creates the rate limit scheduler of each token
+     * @param sleeper Waits for the given number of milliseconds
+     */
+    TokenPool(List<String> tokens, int maxRetries, Supplier<RateLimitScheduler> schedulerFactory,
+              RateLimitScheduler.Sleeper sleeper) {
+        this.tokens = new ArrayList<>();
+        for (String token : tokens) {
+            if (token != null && !token.isBlank()) {
+                this.tokens.add(new PooledToken(token.trim(), schedulerFactory.get()));
+            }
+        }
+        if (this.tokens.isEmpty()) {
+            throw new IllegalArgumentException("At least one GitHub access token must be configured");
+        }
+        this.maxRetries = maxRetries;
+        this.sleeper = sleeper;
+    }
+
+    /**
+     * Pick the least loaded token and wait until it may send the next request.
+     * Tokens that are not parked are preferred, then the one with the most remaining budget;
+     * a token that has not been used yet counts as having its full budget.
+     * When every token is parked, the one available first is taken.
+     * @return Token to send the request with
+     * @throws InterruptedException if interrupted while waiting
+     */
+    PooledToken acquire() throws InterruptedException {
+        PooledToken selected = null;
+        long waitMillis;
+        synchronized (this) {
+            long selectedParked = Long.MAX_VALUE;
+            long selectedRemaining = Long.MIN_VALUE;
+            for (PooledToken token : tokens) {
+                long parked = token.scheduler.parkedMillis();
+                long remaining = token.scheduler.getStats().remaining();
+                if (remaining < 0) {
+                    remaining = Long.MAX_VALUE;
+                }
+                if (parked < selectedParked || (parked == selectedParked && remaining > selectedRemaining)) {
+                    selected = token;
+                    selectedParked = parked;
+                    selectedRemaining = remaining;
+                }
+            }
+            // Reserve while holding the pool lock so concurrent callers see the reduced budget
+            waitMillis = selected.scheduler.reserve();
+        }
+        if (waitMillis > 0) {
+            sleeper.sleep(waitMillis);
+        }
+        return selected;
+    }
+
+    /**
+     * @return Number of times a throttled request is retried, possibly with another token
+     */
+    int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Usage of each token, in configuration order
+     * @return Per-token rate limit statistics, tokens are masked
+     */
+    public List<TokenStats> getStats() {
+        List<TokenStats> stats = new ArrayList<>();
+        for (PooledToken token : tokens) {
+            stats.add(new TokenStats(mask(token.value), token.scheduler.parkedMillis() > 0, token.scheduler.getStats()));
+        }
+        return stats;
+    }
+
+    /**
+     * Export the remaining budget, the wait of a request sent now and whether it is parked, per masked token
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (PooledToken token : tokens) {
+            String masked = mask(token.value);
+            RateLimitScheduler scheduler = token.scheduler;
+            Gauge.builder("github.ratelimit.remaining", scheduler, s -> s.getStats().remaining())
+                .description("Requests left in the current rate limit window, -1 until GitHub reported it")
+                .tag("token", masked).register(registry);
+            Gauge.builder("github.ratelimit.wait", scheduler, s -> s.getStats().waitMillis())
+                .description("Time a request sent now would wait for this token")
+                .baseUnit("milliseconds").tag("token", masked).register(registry);
+            Gauge.builder("github.ratelimit.parked", scheduler, s -> s.parkedMillis() > 0 ? 1 : 0)
+                .description("1 while the token waits for its reset or a Retry-After")
+                .tag("token", masked).register(registry);
+        }
+    }
+
+    /**
+     * Keep the last four characters, enough to tell tokens apart without exposing them
+     */
+    static String mask(String token) {
+        return token.length() <= 8 ? "****" : "****" + token.substring(token.length() - 4);
+    }
+
+    /**
+     * An access token and the scheduler tracking its budget
+     */
+    static final class PooledToken {
+
+        private final String value;
+        private final RateLimitScheduler scheduler;
+
+        private PooledToken(String value, RateLimitScheduler scheduler) {
+            this.value = value;
+            this.scheduler = scheduler;
+        }
+
+        String value() {
+            return value;
+        }
+
+        RateLimitScheduler scheduler() {
+            return scheduler;
+        }
+    }
+
+    /**
+     * Rate limit statistics of one token
+     * @param token Masked token
+     * @param parked True while the token waits for its reset or a Retry-After
+     * @param usage Budget and wait counters
+     */
+    public record TokenStats(String token, boolean parked, RateLimitScheduler.Stats usage) {
+    }
+}
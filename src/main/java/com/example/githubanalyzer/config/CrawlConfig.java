@@ -0,0 +1,94 @@
+package com.example.githubanalyzer.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors used by the crawl pipeline. Also enables the scheduled delta refresh.
+ */
+@Configuration
+@EnableScheduling
+public class CrawlConfig {
+
+    @Value("${github.crawl.concurrency:8}")
+    private int concurrency;
+
+    @Value("${github.jobs.concurrency:2}")
+    private int jobConcurrency;
+
+    /**
+     * Bounded pool for GitHub API fan-out. Its size caps the number of requests in flight.
+     * @return Crawl executor
+     */
+    @Bean(name = "githubCrawlExecutor", destroyMethod = "shutdown")
+    public ExecutorService githubCrawlExecutor() {
+        return Executors.newFixedThreadPool(concurrency, namedDaemonThreads("github-crawl-"));
+    }
+
+    /**
+     * Runs whole crawl jobs, so HTTP request threads return as soon as a job is queued.
+     * Kept apart from the crawl executor, whose threads the jobs wait on.
+     * @return Job executor
+     */
+    @Bean(name = "githubJobExecutor", destroyMethod = "shutdown")
+    public ExecutorService githubJobExecutor() {
+        return Executors.newFixedThreadPool(jobConcurrency, namedDaemonThreads("github-job-"));
+    }
+
+    /**
+     * Fetches the next page of a repository listing while the crawl ranks the current one. One thread per
+     * job, so a prefetch never waits behind the contributor and profile requests on the crawl executor.
+     * @return Prefetch executor
+     */
+    @Bean(name = "githubPrefetchExecutor", destroyMethod = "shutdown")
+    public ExecutorService githubPrefetchExecutor() {
+        return Executors.newFixedThreadPool(jobConcurrency, namedDaemonThreads("github-prefetch-"));
+    }
+
+    /**
+     * Rebuilds the read snapshot after a crawl commits. One thread, so rebuilds never overlap and
+     * never hold up the committing thread or the readers.
+     * @return Read snapshot executor
+     */
+    @Bean(name = "readSnapshotExecutor", destroyMethod = "shutdown")
+    public ExecutorService readSnapshotExecutor() {
+        return Executors.newSingleThreadExecutor(namedDaemonThreads("read-snapshot-"));
+    }
+
+    /**
+     * Active threads and queued tasks of the executors, showing when crawls wait for a free thread
+     * @return Executor metrics
+     */
+    @Bean
+    public MeterBinder crawlExecutorMetrics(@Qualifier("githubCrawlExecutor") ExecutorService crawlExecutor,
+                                            @Qualifier("githubJobExecutor") ExecutorService jobExecutor,
+                                            @Qualifier("githubPrefetchExecutor") ExecutorService prefetchExecutor,
+                                            @Qualifier("readSnapshotExecutor") ExecutorService readSnapshotExecutor) {
+        return registry -> {
+            new ExecutorServiceMetrics(crawlExecutor, "githubCrawlExecutor", Tags.empty()).bindTo(registry);
+            new ExecutorServiceMetrics(jobExecutor, "githubJobExecutor", Tags.empty()).bindTo(registry);
+            new ExecutorServiceMetrics(prefetchExecutor, "githubPrefetchExecutor", Tags.empty()).bindTo(registry);
+            new ExecutorServiceMetrics(readSnapshotExecutor, "readSnapshotExecutor", Tags.empty()).bindTo(registry);
+        };
+    }
+
+    static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.githubanalyzer.config;
+
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.protocol.HTTP;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared HTTP transport for the GitHub API.
+ * A single pooled client is reused for every request so a crawl works over a handful
+ * of keep-alive connections instead of opening a new TCP/TLS connection per call.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${github.http.max-total:20}")
+    private int maxTotal;
+
+    @Value("${github.http.max-per-route:10}")
+    private int maxPerRoute;
+
+    @Value("${github.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${github.http.read-timeout-ms:30000}")
+    private int readTimeoutMs;
+
+    @Value("${github.http.pool-timeout-ms:10000}")
+    private int poolTimeoutMs;
+
+    @Value("${github.http.keep-alive-seconds:30}")
+    private long keepAliveSeconds;
+
+    @Value("${github.http.idle-evict-seconds:60}")
+    private long idleEvictSeconds;
+
+    @Value("${github.http.validate-after-inactivity-ms:2000}")
+    private int validateAfterInactivityMs;
+
+    /**
+     * Pooled, keep-alive HTTP client used by {@link com.example.githubanalyzer.client.GitHubClient}
+     * @return Shared HTTP client
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient gitHubHttpClient() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity(validateAfterInactivityMs);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout(connectTimeoutMs)
+            .setSocketTimeout(readTimeoutMs)
+            .setConnectionRequestTimeout(poolTimeoutMs)
+            .build();
+
+        return HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .setKeepAliveStrategy(keepAliveStrategy())
+            .evictExpiredConnections()
+            .evictIdleConnections(idleEvictSeconds, TimeUnit.SECONDS)
+            .build();
+    }
+
+    /**
+     * Honour the server's Keep-Alive timeout when it sends one, otherwise fall back to the configured default
+     */
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        long defaultKeepAliveMs = TimeUnit.SECONDS.toMillis(keepAliveSeconds);
+        return (response, context) -> {
+            HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return Math.min(Long.parseLong(element.getValue()) * 1000, defaultKeepAliveMs);
+                    } catch (NumberFormatException ignored) {
+                        // fall through to the default
+                    }
+                }
+            }
+            return defaultKeepAliveMs;
+        };
+    }
+}
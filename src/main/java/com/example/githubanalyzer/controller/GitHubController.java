@@ -1,82 +1,303 @@
 package com.example.githubanalyzer.controller;
 
-import com.example.githubanalyzer.entity.ContributorEntity;
-import com.example.githubanalyzer.entity.RepoEntity;
+import com.example.githubanalyzer.client.TokenPool;
+import com.example.githubanalyzer.dto.ContributorFilter;
+import com.example.githubanalyzer.dto.KeysetPage;
+import com.example.githubanalyzer.dto.LeaderboardEntry;
+import com.example.githubanalyzer.dto.RepoFilter;
+import com.example.githubanalyzer.dto.RepoSummary;
+import com.example.githubanalyzer.dto.RepoWithContributorDTO;
+import com.example.githubanalyzer.service.CrawlConflictException;
+import com.example.githubanalyzer.service.CrawlJob;
+import com.example.githubanalyzer.service.CrawlJobService;
+import com.example.githubanalyzer.service.CrawlRequest;
 import com.example.githubanalyzer.service.GitHubService;
+import com.example.githubanalyzer.service.ReadSnapshot;
+import com.example.githubanalyzer.service.ReadSnapshotCache;
+import com.example.githubanalyzer.service.SyncReport;
+import com.example.githubanalyzer.service.TransactionTimer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api")
 public class GitHubController {
 
     private static final Logger logger = LoggerFactory.getLogger(GitHubController.class);
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     @Autowired
     private GitHubService githubService;
 
+    @Autowired
+    private CrawlJobService crawlJobService;
+
+    @Autowired
+    private ReadSnapshotCache readSnapshots;
+
     /**
-     * Fetch and save top Apache repositories and their contributors
-     * @return List of repositories
+     * Start a background crawl that fetches and saves the top repositories of an organization and their contributors.
+     * A crawl of the same organization with the same parameters already queued or running is joined instead of
+     * starting another one. Parameters that are not given take their configured defaults.
+     * @param org Organization login, defaults to the first configured organization
+     * @param reposToFetch Number of recently updated repositories to rank, 0 ranks the whole organization up to the cap
+     * @param topRepos Number of repositories kept
+     * @param topContributors Number of contributors kept per repository
+     * @return 202 Accepted with the job status, its URL in the Location header, or 409 Conflict if a different
+     * crawl of the organization is queued or running
      */
     @PostMapping("/fetch-and-save")
-    public ResponseEntity<?> fetchAndSaveTopApacheRepos() {
-        try {
-            logger.info("Received request to fetch and save top Apache repositories");
-            List<RepoEntity> repos = githubService.fetchAndSaveTopApacheRepos();
-            logger.info("Successfully fetched and saved {} repositories", repos.size());
-            return ResponseEntity.ok(repos);
-        } catch (Exception e) {
-            logger.error("Error fetching and saving repositories: {}", e.getMessage(), e);
-            return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
-        }
+    public ResponseEntity<CrawlJob.Status> fetchAndSaveTopRepos(@RequestParam(required = false) String org,
+                                                                @RequestParam(required = false) Integer reposToFetch,
+                                                                @RequestParam(required = false) Integer topRepos,
+                                                                @RequestParam(required = false) Integer topContributors) {
+        CrawlRequest request = githubService.crawlRequest(org != null ? org : githubService.getOrgs().get(0),
+                                                          reposToFetch, topRepos, topContributors);
+        logger.info("Received request to fetch and save top repositories: {}", request);
+        CrawlJob job = crawlJobService.submitFetchAndSave(request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.getId()))
+                .body(job.getStatus());
+    }
+
+    /**
+     * Start one background crawl per organization, running in parallel under the shared request
+     * concurrency and rate limit budget
+     * @param orgs Organization logins, defaults to the configured organizations
+     * @param reposToFetch Number of recently updated repositories to rank per organization
+     * @param topRepos Number of repositories kept per organization
+     * @param topContributors Number of contributors kept per repository
+     * @return 202 Accepted with the status of each job
+     */
+    @PostMapping("/fetch-and-save/orgs")
+    public ResponseEntity<List<CrawlJob.Status>> fetchAndSaveTopReposOfOrgs(@RequestParam(name = "org", required = false) List<String> orgs,
+                                                                            @RequestParam(required = false) Integer reposToFetch,
+                                                                            @RequestParam(required = false) Integer topRepos,
+                                                                            @RequestParam(required = false) Integer topContributors) {
+        List<CrawlRequest> requests = (orgs != null && !orgs.isEmpty() ? orgs : githubService.getOrgs()).stream()
+                .distinct()
+                .map(org -> githubService.crawlRequest(org, reposToFetch, topRepos, topContributors))
+                .collect(Collectors.toList());
+        logger.info("Received request to fetch and save top repositories of {} organizations", requests.size());
+        List<CrawlJob.Status> statuses = crawlJobService.submitFetchAndSave(requests).stream()
+                .map(CrawlJob::getStatus)
+                .collect(Collectors.toList());
+        return ResponseEntity.accepted().body(statuses);
+    }
+
+    /**
+     * Reject crawl and paging parameters that are out of range
+     * @return 400 Bad Request with the reason
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
     }
 
     /**
-     * Get all repositories from database
-     * @return List of repositories
+     * Reject crawl triggers for an organization that has a different crawl queued or running
+     * @return 409 Conflict with the status of that crawl, its URL in the Location header
+     */
+    @ExceptionHandler(CrawlConflictException.class)
+    public ResponseEntity<CrawlJob.Status> handleCrawlConflict(CrawlConflictException e) {
+        CrawlJob active = e.getActiveJob();
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .location(URI.create("/api/jobs/" + active.getId()))
+                .body(active.getStatus());
+    }
+
+    /**
+     * Get the stage, progress counts and timings of a crawl job
+     * @param id Job id returned by POST /api/fetch-and-save
+     * @return Job status, or 404 Not Found for unknown ids
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<CrawlJob.Status> getJob(@PathVariable String id) {
+        CrawlJob job = crawlJobService.getJob(id);
+        return job != null ? ResponseEntity.ok(job.getStatus()) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Get the inserted/updated/unchanged row counts of the most recent sync
+     * @return Sync report, or 204 No Content before the first sync
+     */
+    @GetMapping("/sync-report")
+    public ResponseEntity<SyncReport> getLastSyncReport() {
+        SyncReport report = githubService.getLastSyncReport();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Get one page of repositories from database without their contributors, most starred first.
+     * When more rows follow, the X-Next-Cursor header carries the cursor of the next page and the
+     * Link header its URL. A request whose If-None-Match carries the current tag gets 304 Not Modified
+     * without a query.
+     * @param filter Optional org, language, license and minStars filters
+     * @param cursor Cursor of the page, from the previous response
+     * @param limit Page size, 1 to 1000, default 100
+     * @param request Current request, checked against the current entity tag
+     * @return List of repository summaries
      */
     @GetMapping("/repos")
-    public List<RepoEntity> getAllRepos() {
-        return githubService.getAllRepos();
+    public ResponseEntity<List<RepoSummary>> getRepos(RepoFilter filter,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer limit,
+                                                      WebRequest request) {
+        String eTag = readSnapshots.currentETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return pageResponse(eTag, githubService.getRepos(filter, cursor, limit));
     }
 
     /**
-     * Get all contributors from database
+     * Stream all repositories as newline-delimited JSON without building the full list in memory
+     * @return One JSON repository per line
+     */
+    @GetMapping(value = "/repos/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllRepos() {
+        StreamingResponseBody body = githubService::writeReposAsNdjson;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Get one page of contributors from database, most contributions first, each with the id and
+     * name of its repository. Paged and tagged like GET /api/repos.
+     * @param filter Optional repo, company and minContributions filters
+     * @param cursor Cursor of the page, from the previous response
+     * @param limit Page size, 1 to 1000, default 100
+     * @param request Current request, checked against the current entity tag
      * @return List of contributors
      */
     @GetMapping("/contributors")
-    public List<ContributorEntity> getAllContributors() {
-        return githubService.getAllContributors();
+    public ResponseEntity<List<RepoWithContributorDTO>> getContributors(ContributorFilter filter,
+                                                                        @RequestParam(required = false) String cursor,
+                                                                        @RequestParam(required = false) Integer limit,
+                                                                        WebRequest request) {
+        String eTag = readSnapshots.currentETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return pageResponse(eTag, githubService.getContributors(filter, cursor, limit));
+    }
+
+    private static <T> ResponseEntity<List<T>> pageResponse(String eTag, KeysetPage<T> page) {
+        if (page.nextCursor() == null) {
+            return ResponseEntity.ok().eTag(eTag).body(page.items());
+        }
+        URI next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", page.nextCursor())
+                .build(true)
+                .toUri();
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .header(NEXT_CURSOR_HEADER, page.nextCursor())
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(page.items());
+    }
+
+    /**
+     * Get formatted repository and contributor information, streamed from database row by row.
+     * A request whose If-None-Match carries the current tag gets 304 Not Modified without a query.
+     * Also served at /formatted-info/stream, its path from before /formatted-info streamed as well.
+     * @param request Current request, checked against the current entity tag
+     * @return Formatted text with repository and contributor information
+     */
+    @GetMapping(value = {"/formatted-info", "/formatted-info/stream"}, produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<StreamingResponseBody> getFormattedInfo(WebRequest request) {
+        String eTag = readSnapshots.currentETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(out -> {
+                    Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                    githubService.writeFormattedRepoAndContributorInfo(writer);
+                    writer.flush();
+                });
+    }
+
+
+    /**
+     * Get the contributor leaderboard: contributions summed over all stored repositories, with the
+     * number of repositories and the rank of each login, from the read snapshot
+     * @param limit Number of entries, 1 to 1000, default 100
+     * @param offset Number of entries skipped, default 0
+     * @return Leaderboard entries, largest sum first
+     */
+    @GetMapping("/leaderboard")
+    public ResponseEntity<List<LeaderboardEntry>> getLeaderboard(@RequestParam(required = false) Integer limit,
+                                                                 @RequestParam(required = false) Integer offset) {
+        ReadSnapshot snapshot = readSnapshots.current();
+        return ResponseEntity.ok().eTag(snapshot.getETag()).body(snapshot.leaderboard(limit, offset));
+    }
+
+    /**
+     * Get hit/miss statistics of the GitHub response caches
+     * @return Cache statistics by cache name
+     */
+    @GetMapping("/cache-stats")
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(githubService.getCacheStats());
+        stats.put("readSnapshot", readSnapshots.getStats());
+        return stats;
+    }
+
+    /**
+     * Get the GitHub rate limit budget of each access token and the time requests currently wait for it
+     * @return Rate limit statistics per token
+     */
+    @GetMapping("/rate-limit")
+    public List<TokenPool.TokenStats> getRateLimitStats() {
+        return githubService.getRateLimitStats();
     }
 
     /**
-     * Get formatted repository and contributor information
-     * @return Formatted string with repository and contributor information
+     * Get the durations of the write transactions that store finished crawls
+     * @return Transaction count and last, maximum and average duration
      */
-    @GetMapping("/formatted-info")
-    public String getFormattedInfo() {
-        return githubService.getFormattedRepoAndContributorInfo();
+    @GetMapping("/transaction-stats")
+    public TransactionTimer.Stats getWriteTransactionStats() {
+        return githubService.getWriteTransactionStats();
     }
 
     // Legacy endpoints for backward compatibility
 
     @GetMapping("/top-contributors")
-    public Map<String, Integer> getTopContributors() {
-        return githubService.getTopContributors();
+    public ResponseEntity<Map<String, Integer>> getTopContributors() {
+        ReadSnapshot snapshot = readSnapshots.current();
+        return ResponseEntity.ok().eTag(snapshot.getETag()).body(snapshot.getTopContributors());
     }
 
     @GetMapping("/top-repos")
-    public List<Map<String, Object>> getTopRepos() {
-        return githubService.fetchTopApacheRepos();
+    public ResponseEntity<List<Map<String, Object>>> getTopRepos() {
+        ReadSnapshot snapshot = readSnapshots.current();
+        return ResponseEntity.ok().eTag(snapshot.getETag()).body(snapshot.getTopRepos());
     }
 }
@@ -0,0 +1,10 @@
+package com.example.githubanalyzer.dto;
+
+/**
+ * Optional filters of the contributor listing, bound from query parameters. Null fields do not filter.
+ * @param repo Full name of the repository, e.g. apache/commons-lang
+ * @param company Company from the contributor profile
+ * @param minContributions Lowest contribution count
+ */
+public record ContributorFilter(String repo, String company, Integer minContributions) {
+}
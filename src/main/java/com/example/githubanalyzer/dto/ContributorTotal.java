@@ -0,0 +1,10 @@
+package com.example.githubanalyzer.dto;
+
+/**
+ * Contributions of one login summed over all stored repositories
+ * @param login GitHub username
+ * @param contributions Sum of the contributions to every stored repository
+ * @param repos Number of stored repositories the login contributed to
+ */
+public record ContributorTotal(String login, long contributions, long repos) {
+}
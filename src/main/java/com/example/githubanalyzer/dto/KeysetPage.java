@@ -0,0 +1,11 @@
+package com.example.githubanalyzer.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing
+ * @param items Rows of this page, in listing order
+ * @param nextCursor Cursor of the next page, null on the last page
+ */
+public record KeysetPage<T>(List<T> items, String nextCursor) {
+}
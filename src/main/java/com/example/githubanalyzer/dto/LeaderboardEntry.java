@@ -0,0 +1,11 @@
+package com.example.githubanalyzer.dto;
+
+/**
+ * One row of the cross-repository contributor leaderboard
+ * @param rank Position by summed contributions, equal sums share a rank
+ * @param login GitHub username
+ * @param contributions Sum of the contributions to every stored repository
+ * @param repos Number of stored repositories the login contributed to
+ */
+public record LeaderboardEntry(int rank, String login, long contributions, long repos) {
+}
@@ -0,0 +1,20 @@
+package com.example.githubanalyzer.dto;
+
+/**
+ * One row of the repository/contributor report: a repository joined with one of its contributors.
+ * The contributor fields are null for a repository without contributors.
+ */
+public record RepoContributorRow(
+    Long repoId,
+    String fullName,
+    int stars,
+    String language,
+    Integer watchersCount,
+    Integer openIssuesCount,
+    String license,
+    Long contributorId,
+    String login,
+    String location,
+    String company,
+    Integer contributions) {
+}
@@ -0,0 +1,11 @@
+package com.example.githubanalyzer.dto;
+
+/**
+ * Optional filters of the repository listing, bound from query parameters. Null fields do not filter.
+ * @param org Organization login
+ * @param language Primary language, e.g. Java
+ * @param license License name as reported by GitHub
+ * @param minStars Lowest star count
+ */
+public record RepoFilter(String org, String language, String license, Integer minStars) {
+}
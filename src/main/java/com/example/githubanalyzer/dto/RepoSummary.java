@@ -0,0 +1,19 @@
+package com.example.githubanalyzer.dto;
+
+/**
+ * Repository fields without the contributor association, as written by the streaming endpoint
+ */
+public record RepoSummary(
+    Long id,
+    String fullName,
+    String org,
+    String description,
+    int stars,
+    int forks,
+    String url,
+    Integer watchersCount,
+    String language,
+    Integer openIssuesCount,
+    String license,
+    String openIssues) {
+}
@@ -0,0 +1,12 @@
+package com.example.githubanalyzer.dto;
+
+import java.time.Instant;
+
+/**
+ * What the last sync stored about a repository, compared with the listing on a delta refresh
+ */
+public record RepoSyncState(
+    String fullName,
+    Instant pushedAt,
+    Instant updatedAt) {
+}
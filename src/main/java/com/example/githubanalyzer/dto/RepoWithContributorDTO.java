@@ -1,17 +1,15 @@
 package com.example.githubanalyzer.dto;
 
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-@Data
-@NoArgsConstructor
-public class RepoWithContributorDTO {
-    private Long id;
-    private String fullName;
-    private String description;
-    private int stars;
-    private int forks;
-    private String url;
-    private String contributorLogin;
-    private int contributions;
-}
\ No newline at end of file
+/**
+ * A contributor with the identifying fields of its repository, as returned by the contributors endpoint.
+ * Flat, so serializing it never walks the entity graph.
+ */
+public record RepoWithContributorDTO(
+    Long id,
+    String login,
+    int contributions,
+    String location,
+    String company,
+    Long repoId,
+    String repoFullName) {
+}
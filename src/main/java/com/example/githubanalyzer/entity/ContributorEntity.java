@@ -2,15 +2,23 @@ package com.example.githubanalyzer.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_contributor_repo_login", columnNames = {"repo_id", "login"}),
+       indexes = {
+           @Index(name = "idx_contributor_contributions_id", columnList = "contributions desc, id desc"),
+           @Index(name = "idx_contributor_login_contributions", columnList = "login, contributions")
+       })
 @Data
 @NoArgsConstructor
 public class ContributorEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contributor_entity_seq")
+    @SequenceGenerator(name = "contributor_entity_seq", sequenceName = "contributor_entity_seq", allocationSize = 50)
     private Long id;
 
     private String login;
@@ -18,8 +26,19 @@ public class ContributorEntity {
     private String location;
     private String company;
 
-    @ManyToOne
+    /**
+     * Hash of the synced field values, used to skip rows GitHub reports unchanged
+     */
+    @Column(length = 64)
+    private String contentHash;
+
+    /**
+     * Loaded lazily so a contributor query does not select each repository one by one
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "repo_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private RepoEntity repo;
 
     // Manual getters and setters
@@ -70,4 +89,12 @@ public class ContributorEntity {
     public void setCompany(String company) {
         this.company = company;
     }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
 }
@@ -2,20 +2,27 @@ package com.example.githubanalyzer.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
+import java.time.Instant;
 import java.util.List;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_repo_full_name", columnNames = "full_name"),
+       indexes = @Index(name = "idx_repo_stars_id", columnList = "stars desc, id desc"))
 @Data
 @NoArgsConstructor
 public class RepoEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "repo_entity_seq")
+    @SequenceGenerator(name = "repo_entity_seq", sequenceName = "repo_entity_seq", allocationSize = 50)
     private Long id;
 
     private String fullName;
+    private String org;
     private String description;
     private int stars;
     private int forks;
@@ -33,7 +40,24 @@ public class RepoEntity {
     @Column(length = 1000)
     private String openIssues;
 
+    /**
+     * Hash of the synced field values, used to skip rows GitHub reports unchanged
+     */
+    @Column(length = 64)
+    private String contentHash;
+
+    /**
+     * Last push and last update as reported by GitHub, used to skip unchanged repositories on a delta refresh
+     */
+    private Instant pushedAt;
+    private Instant updatedAt;
+
+    /**
+     * Excluded from toString, equals and hashCode, which would otherwise recurse through ContributorEntity.repo
+     */
     @OneToMany(mappedBy = "repo", cascade = CascadeType.ALL)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<ContributorEntity> contributors;
 
     // Manual getters and setters
@@ -53,6 +77,14 @@ public class RepoEntity {
         this.fullName = fullName;
     }
 
+    public String getOrg() {
+        return org;
+    }
+
+    public void setOrg(String org) {
+        this.org = org;
+    }
+
     public String getDescription() {
         return description;
     }
@@ -132,4 +164,28 @@ public class RepoEntity {
     public void setOpenIssues(String openIssues) {
         this.openIssues = openIssues;
     }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public Instant getPushedAt() {
+        return pushedAt;
+    }
+
+    public void setPushedAt(Instant pushedAt) {
+        this.pushedAt = pushedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
@@ -1,9 +1,70 @@
 package com.example.githubanalyzer.repository;
 
+import com.example.githubanalyzer.dto.ContributorTotal;
+import com.example.githubanalyzer.dto.RepoWithContributorDTO;
 import com.example.githubanalyzer.entity.ContributorEntity;
+import com.example.githubanalyzer.entity.RepoEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface ContributorRepository extends JpaRepository<ContributorEntity, Long> {
+
+    /**
+     * Load all contributors with their repository joined in, instead of one select per repository
+     * @return Contributors with initialized repositories
+     */
+    @Override
+    @EntityGraph(attributePaths = "repo")
+    List<ContributorEntity> findAll();
+
+    /**
+     * Find the stored contributors of the given repositories
+     * @param repos Stored repositories
+     * @return Contributors of these repositories
+     */
+    List<ContributorEntity> findByRepoIn(Collection<RepoEntity> repos);
+
+    /**
+     * Load one page of contributors with the id and name of their repository, most contributions first.
+     * Seeks past the previous page on the (contributions, id) index instead of skipping rows, so every
+     * page costs the same. Null filters match every contributor. The repository is left joined, so
+     * the database reads contributors first, in index order, instead of scanning from the repositories.
+     * The leading range condition lets the index scan start at the cursor instead of its first entry.
+     * @param afterContributions Contributions of the last row of the previous page
+     * @param afterId Id of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return Contributor projections ordered by contributions and id, descending
+     */
+    @Query("select new com.example.githubanalyzer.dto.RepoWithContributorDTO("
+        + "c.id, c.login, c.contributions, c.location, c.company, r.id, r.fullName) "
+        + "from ContributorEntity c left join c.repo r "
+        + "where c.contributions <= :afterContributions "
+        + "and (c.contributions < :afterContributions or c.id < :afterId) "
+        + "and (:repo is null or r.fullName = :repo) "
+        + "and (:company is null or c.company = :company) "
+        + "and (:minContributions is null or c.contributions >= :minContributions) "
+        + "order by c.contributions desc, c.id desc")
+    List<RepoWithContributorDTO> findContributorPage(@Param("afterContributions") int afterContributions,
+                                                     @Param("afterId") long afterId,
+                                                     @Param("repo") String repo,
+                                                     @Param("company") String company,
+                                                     @Param("minContributions") Integer minContributions,
+                                                     Limit limit);
+
+    /**
+     * Sum the contributions of each login over all repositories, largest sum first.
+     * The grouping reads the (login, contributions) index instead of the rows.
+     * @return One total per login, ties ordered by login
+     */
+    @Query("select new com.example.githubanalyzer.dto.ContributorTotal(c.login, sum(c.contributions), count(c)) "
+        + "from ContributorEntity c group by c.login order by sum(c.contributions) desc, c.login")
+    List<ContributorTotal> findContributorTotals();
 }
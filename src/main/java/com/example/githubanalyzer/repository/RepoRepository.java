@@ -1,9 +1,102 @@
 package com.example.githubanalyzer.repository;
 
+import com.example.githubanalyzer.dto.RepoContributorRow;
+import com.example.githubanalyzer.dto.RepoSummary;
+import com.example.githubanalyzer.dto.RepoSyncState;
 import com.example.githubanalyzer.entity.RepoEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface RepoRepository extends JpaRepository<RepoEntity, Long> {
+
+    /**
+     * Find the stored repositories among the given full names
+     * @param fullNames Repository full names, e.g. apache/commons-lang
+     * @return Stored repositories, at most one per full name
+     */
+    List<RepoEntity> findByFullNameIn(Collection<String> fullNames);
+
+    /**
+     * Load the GitHub timestamps stored for the given repositories
+     * @param fullNames Repository full names
+     * @return Sync state of each stored repository among the given names
+     */
+    @Query("select new com.example.githubanalyzer.dto.RepoSyncState(r.fullName, r.pushedAt, r.updatedAt) "
+        + "from RepoEntity r where r.fullName in :fullNames")
+    List<RepoSyncState> findSyncStates(@Param("fullNames") Collection<String> fullNames);
+
+    /**
+     * Stream every repository joined with its contributors, ordered by repository so rows of the
+     * same repository are adjacent. Rows are projections and are not kept in the persistence context.
+     * Must be consumed and closed inside a transaction.
+     * @return Flat repository/contributor rows
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.githubanalyzer.dto.RepoContributorRow("
+        + "r.id, r.fullName, r.stars, r.language, r.watchersCount, r.openIssuesCount, r.license, "
+        + "c.id, c.login, c.location, c.company, c.contributions) "
+        + "from RepoEntity r left join r.contributors c order by r.id, c.id")
+    Stream<RepoContributorRow> streamRepoContributorRows();
+
+    /**
+     * Load every repository without its contributors, most starred first.
+     * Selects only the summary columns, and the order follows the (stars, id) index.
+     * @return Repository summaries ordered by stars and id, descending
+     */
+    @Query("select new com.example.githubanalyzer.dto.RepoSummary("
+        + "r.id, r.fullName, r.org, r.description, r.stars, r.forks, r.url, r.watchersCount, r.language, "
+        + "r.openIssuesCount, r.license, r.openIssues) "
+        + "from RepoEntity r order by r.stars desc, r.id desc")
+    List<RepoSummary> findRepoSummaries();
+
+    /**
+     * Load one page of repositories without their contributors, most starred first.
+     * Seeks past the previous page on the (stars, id) index instead of skipping rows, so every page
+     * costs the same. The leading range condition lets the index scan start at the cursor instead of
+     * its first entry. Null filters match every repository.
+     * @param afterStars Stars of the last row of the previous page
+     * @param afterId Id of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return Repository summaries ordered by stars and id, descending
+     */
+    @Query("select new com.example.githubanalyzer.dto.RepoSummary("
+        + "r.id, r.fullName, r.org, r.description, r.stars, r.forks, r.url, r.watchersCount, r.language, "
+        + "r.openIssuesCount, r.license, r.openIssues) "
+        + "from RepoEntity r "
+        + "where r.stars <= :afterStars and (r.stars < :afterStars or r.id < :afterId) "
+        + "and (:org is null or r.org = :org) "
+        + "and (:language is null or r.language = :language) "
+        + "and (:license is null or r.license = :license) "
+        + "and (:minStars is null or r.stars >= :minStars) "
+        + "order by r.stars desc, r.id desc")
+    List<RepoSummary> findRepoSummaryPage(@Param("afterStars") int afterStars,
+                                          @Param("afterId") long afterId,
+                                          @Param("org") String org,
+                                          @Param("language") String language,
+                                          @Param("license") String license,
+                                          @Param("minStars") Integer minStars,
+                                          Limit limit);
+
+    /**
+     * Stream every repository without its contributors, ordered by id.
+     * Must be consumed and closed inside a transaction.
+     * @return Repository summaries
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.githubanalyzer.dto.RepoSummary("
+        + "r.id, r.fullName, r.org, r.description, r.stars, r.forks, r.url, r.watchersCount, r.language, "
+        + "r.openIssuesCount, r.license, r.openIssues) "
+        + "from RepoEntity r order by r.id")
+    Stream<RepoSummary> streamRepoSummaries();
 }
@@ -0,0 +1,41 @@
+package com.example.githubanalyzer.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 hash over a fixed list of field values, used to detect whether a synced row changed
+ */
+final class ContentHash {
+
+    private static final char SEPARATOR = '\u001f';
+    private static final char NULL_MARKER = '\u0000';
+
+    private ContentHash() {
+    }
+
+    /**
+     * @param values Field values in a fixed order, may contain nulls
+     * @return Lowercase hex SHA-256 of the values, 64 characters
+     */
+    static String of(Object... values) {
+        StringBuilder content = new StringBuilder();
+        for (Object value : values) {
+            if (value == null) {
+                content.append(NULL_MARKER);
+            } else {
+                content.append(value);
+            }
+            content.append(SEPARATOR);
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.githubanalyzer.service;
+
+/**
+ * Thrown when a crawl is triggered for an organization that already has a queued or running crawl
+ * of a different kind or with different parameters. The trigger is rejected rather than joined, so
+ * its caller never gets a job that does not do what it asked for.
+ */
+public class CrawlConflictException extends IllegalStateException {
+
+    private final transient CrawlJob activeJob;
+
+    public CrawlConflictException(CrawlJob activeJob) {
+        super("A " + activeJob.getKind() + " crawl of " + activeJob.getOrg() + " with different parameters is already "
+              + "in progress as job " + activeJob.getId());
+        this.activeJob = activeJob;
+    }
+
+    /**
+     * @return The queued or running job of the organization
+     */
+    public CrawlJob getActiveJob() {
+        return activeJob;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.githubanalyzer.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A crawl of one organization running in the background. Tracks the current stage, progress counts
+ * and the time spent in each stage. Updated by the crawl thread and read by status requests.
+ */
+public class CrawlJob implements CrawlProgress {
+
+    private final String id = UUID.randomUUID().toString();
+    private final CrawlKind kind;
+    private final CrawlRequest request;
+    private final Instant submittedAt = Instant.now();
+
+    private final AtomicLong reposScanned = new AtomicLong();
+    private final AtomicInteger reposSelected = new AtomicInteger();
+    private final AtomicInteger contributorsFetched = new AtomicInteger();
+    private final AtomicInteger coalescedTriggers = new AtomicInteger();
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    // Guarded by this
+    private CrawlStage stage = CrawlStage.QUEUED;
+    private Instant stageStartedAt = submittedAt;
+    private final Map<CrawlStage, Long> stageMillis = new LinkedHashMap<>();
+    private Instant startedAt;
+    private Instant finishedAt;
+    private List<String> repositories;
+    private SyncReport syncReport;
+    private long transactionMillis;
+    private String error;
+
+    CrawlJob(CrawlKind kind, CrawlRequest request) {
+        this.kind = kind;
+        this.request = request;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getOrg() {
+        return request.org();
+    }
+
+    public CrawlKind getKind() {
+        return kind;
+    }
+
+    public CrawlRequest getRequest() {
+        return request;
+    }
+
+    @Override
+    public synchronized void stageStarted(CrawlStage next) {
+        Instant now = Instant.now();
+        if (startedAt == null && next != CrawlStage.QUEUED) {
+            startedAt = now;
+        }
+        stageMillis.merge(stage, Duration.between(stageStartedAt, now).toMillis(), Long::sum);
+        stage = next;
+        stageStartedAt = now;
+    }
+
+    @Override
+    public void repositoriesScanned(long count) {
+        reposScanned.set(count);
+    }
+
+    @Override
+    public void repositoriesSelected(int count) {
+        reposSelected.set(count);
+    }
+
+    @Override
+    public void contributorsFetched(int count) {
+        contributorsFetched.addAndGet(count);
+    }
+
+    @Override
+    public synchronized void synced(SyncReport report, long transactionMillis) {
+        this.syncReport = report;
+        this.transactionMillis = transactionMillis;
+    }
+
+    /**
+     * Record another trigger for the same organization that joined this job instead of starting a crawl
+     */
+    void coalesce() {
+        coalescedTriggers.incrementAndGet();
+    }
+
+    synchronized void complete(List<String> repositories) {
+        this.repositories = List.copyOf(repositories);
+        finish(CrawlStage.COMPLETED);
+    }
+
+    synchronized void fail(String error) {
+        this.error = error;
+        finish(CrawlStage.FAILED);
+    }
+
+    private void finish(CrawlStage finalStage) {
+        stageStarted(finalStage);
+        finishedAt = stageStartedAt;
+        finished.countDown();
+    }
+
+    public synchronized boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    /**
+     * Wait until the job completed or failed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitFinished() throws InterruptedException {
+        finished.await();
+    }
+
+    /**
+     * @return Consistent snapshot of the job for status reporting
+     */
+    public synchronized Status getStatus() {
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        Map<CrawlStage, Long> stageDurations = new LinkedHashMap<>(stageMillis);
+        if (finishedAt == null) {
+            stageDurations.merge(stage, Duration.between(stageStartedAt, end).toMillis(), Long::sum);
+        }
+        return new Status(id, request.org(), kind, request, stage, reposScanned.get(), reposSelected.get(),
+                          contributorsFetched.get(), coalescedTriggers.get(), submittedAt, startedAt, finishedAt,
+                          startedAt != null ? Duration.between(startedAt, end).toMillis() : 0,
+                          stageDurations, repositories, syncReport, transactionMillis, error);
+    }
+
+    /**
+     * Snapshot of a crawl job
+     * @param kind Full crawl or delta refresh
+     * @param request Parameters the job crawls with
+     * @param coalescedTriggers Further triggers for the same organization served by this job
+     * @param durationMillis Time since the job started running, up to its end
+     * @param stageMillis Time spent in each stage so far
+     * @param repositories Full names of the synced repositories once completed
+     * @param transactionMillis Duration of the write transaction, including the commit
+     */
+    public record Status(String id, String org, CrawlKind kind, CrawlRequest request, CrawlStage stage,
+                         long reposScanned, int reposSelected, int contributorsFetched, int coalescedTriggers, Instant submittedAt, Instant startedAt,
+                         Instant finishedAt, long durationMillis, Map<CrawlStage, Long> stageMillis,
+                         List<String> repositories, SyncReport syncReport, long transactionMillis, String error) {
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.githubanalyzer.service;
+
+import com.example.githubanalyzer.entity.RepoEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs crawls as background jobs on the job executor.
+ * A trigger for an organization that already has a queued or running job of the same kind and with the same
+ * parameters joins that job instead of starting a duplicate crawl. Any other trigger for that organization is
+ * rejected with a {@link CrawlConflictException}, as two crawls of one organization would write the same rows.
+ * Organization logins are case-insensitive. Finished jobs are kept for status requests up to a history limit.
+ */
+@Service
+public class CrawlJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CrawlJobService.class);
+
+    @Autowired
+    private GitHubService gitHubService;
+
+    @Autowired
+    @Qualifier("githubJobExecutor")
+    private Executor jobExecutor;
+
+    /**
+     * Number of finished jobs kept for status requests
+     */
+    @Value("${github.jobs.history-size:100}")
+    private int historySize = 100;
+
+    private final Map<String, CrawlJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, CrawlJob> activeJobsByOrg = new ConcurrentHashMap<>();
+    private final Deque<String> finishedJobIds = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Start a crawl of an organization, or join the one already queued or running for it with the same parameters
+     * @param request Organization and ranking parameters
+     * @return The job doing the crawl
+     * @throws CrawlConflictException if a different crawl of the organization is queued or running
+     */
+    public CrawlJob submitFetchAndSave(CrawlRequest request) {
+        return submit(CrawlKind.FULL, request, progress -> gitHubService.fetchAndSaveTopRepos(request, progress));
+    }
+
+    /**
+     * Start one crawl per organization. The crawls run in parallel on the job executor and share the crawl
+     * executor and the token pool, so the global request concurrency and rate limit budget still apply.
+     * @param requests Organization and ranking parameters of each crawl
+     * @return The job doing each crawl, in request order
+     * @throws CrawlConflictException if a different crawl of one of the organizations is queued or running
+     */
+    public List<CrawlJob> submitFetchAndSave(List<CrawlRequest> requests) {
+        return requests.stream().map(this::submitFetchAndSave).collect(Collectors.toList());
+    }
+
+    /**
+     * Start a delta refresh of every configured organization, or join the refreshes already queued or running.
+     * An organization with a different crawl in progress is skipped until the next refresh.
+     * @return The job doing the refresh of each organization that was not skipped
+     */
+    public List<CrawlJob> submitDeltaRefresh() {
+        List<CrawlJob> refreshes = new ArrayList<>();
+        for (String org : gitHubService.getOrgs()) {
+            CrawlRequest request = gitHubService.crawlRequest(org, null, null, null);
+            try {
+                refreshes.add(submit(CrawlKind.DELTA_REFRESH, request,
+                                     progress -> gitHubService.refreshChangedRepos(request, progress)));
+            } catch (CrawlConflictException e) {
+                logger.info("Skipped delta refresh of {}: {}", org, e.getMessage());
+            }
+        }
+        return refreshes;
+    }
+
+    private CrawlJob submit(CrawlKind kind, CrawlRequest request, Function<CrawlProgress, List<RepoEntity>> crawl) {
+        boolean[] created = new boolean[1];
+        CrawlJob job = activeJobsByOrg.compute(orgKey(request.org()), (key, active) -> {
+            // A finished job may still be registered for a moment until run releases the organization
+            if (active == null || active.isFinished()) {
+                created[0] = true;
+                return new CrawlJob(kind, request);
+            }
+            if (active.getKind() == kind && sameParameters(active.getRequest(), request)) {
+                active.coalesce();
+            }
+            return active;
+        });
+
+        if (!created[0]) {
+            if (job.getKind() != kind || !sameParameters(job.getRequest(), request)) {
+                throw new CrawlConflictException(job);
+            }
+            logger.info("Crawl of {} already in progress as job {}", request.org(), job.getId());
+            return job;
+        }
+
+        jobs.put(job.getId(), job);
+        logger.info("Queued {} crawl of {} as job {}", kind, request.org(), job.getId());
+        try {
+            jobExecutor.execute(() -> run(job, crawl));
+        } catch (RejectedExecutionException e) {
+            job.fail("Crawl could not be queued: " + e.getMessage());
+            finish(job);
+        }
+        return job;
+    }
+
+    private static String orgKey(String org) {
+        return org.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean sameParameters(CrawlRequest a, CrawlRequest b) {
+        return orgKey(a.org()).equals(orgKey(b.org())) && a.reposToFetch() == b.reposToFetch()
+               && a.topRepos() == b.topRepos() && a.topContributors() == b.topContributors();
+    }
+
+    private void run(CrawlJob job, Function<CrawlProgress, List<RepoEntity>> crawl) {
+        try {
+            List<RepoEntity> repos = crawl.apply(job);
+            job.complete(repos.stream().map(RepoEntity::getFullName).collect(Collectors.toList()));
+            logger.info("Job {} completed in {} ms", job.getId(), job.getStatus().durationMillis());
+        } catch (Throwable e) {
+            // Errors too, or the job would stay running and keep the organization from being crawled again
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            job.fail(Objects.requireNonNullElse(cause.getMessage(), cause.toString()));
+            logger.error("Job {} failed: {}", job.getId(), cause.getMessage(), cause);
+        } finally {
+            finish(job);
+        }
+    }
+
+    /**
+     * Release the organization for new triggers and move the job to the history
+     */
+    private void finish(CrawlJob job) {
+        activeJobsByOrg.remove(orgKey(job.getOrg()), job);
+        finishedJobIds.addLast(job.getId());
+        while (finishedJobIds.size() > historySize) {
+            String evicted = finishedJobIds.pollFirst();
+            if (evicted != null) {
+                jobs.remove(evicted);
+            }
+        }
+    }
+
+    /**
+     * Look up a job by id
+     * @param id Job id
+     * @return The job, or null if unknown or evicted from the history
+     */
+    public CrawlJob getJob(String id) {
+        return jobs.get(id);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.githubanalyzer.service;
+
+/**
+ * What a crawl job does with the organization it crawls
+ */
+public enum CrawlKind {
+    /** Rank the organization and sync the selected repositories and their contributors */
+    FULL,
+    /** Re-fetch the contributors of stored repositories that changed since the last crawl */
+    DELTA_REFRESH
+}
@@ -0,0 +1,146 @@
+package com.example.githubanalyzer.service;
+
+import com.example.githubanalyzer.entity.ContributorEntity;
+import com.example.githubanalyzer.entity.RepoEntity;
+import com.example.githubanalyzer.repository.ContributorRepository;
+import com.example.githubanalyzer.repository.RepoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Writes a finished crawl in a single short transaction. Kept apart from {@link GitHubService} so
+ * the transaction goes through the Spring proxy and never spans a GitHub request.
+ */
+@Component
+public class CrawlPersister {
+
+    @Autowired
+    private RepoRepository repoRepository;
+
+    @Autowired
+    private ContributorRepository contributorRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Insert new rows, update rows whose content hash changed and leave matching rows untouched.
+     * Stored contributors of a synced repository that are no longer among its top contributors are deleted,
+     * unless its contributors were not fetched because the repository did not change.
+     * New rows are saved in one batch per table. The row counts are published as an event that
+     * transactional listeners receive once the rows are committed.
+     * @param crawl Result of the network phase
+     * @return Stored repositories in ranking order and the row counts
+     */
+    @Transactional
+    public Result persist(CrawlResult crawl) {
+        List<String> fullNames = crawl.repos().stream().map(CrawlResult.Repo::fullName).collect(Collectors.toList());
+        Map<String, RepoEntity> storedRepos = repoRepository.findByFullNameIn(fullNames).stream()
+            .collect(Collectors.toMap(RepoEntity::getFullName, repo -> repo));
+        Map<Long, Map<String, ContributorEntity>> storedContributors = storedRepos.isEmpty() ? Map.of()
+            : contributorRepository.findByRepoIn(storedRepos.values()).stream()
+                .collect(Collectors.groupingBy(contributor -> contributor.getRepo().getId(),
+                    Collectors.toMap(ContributorEntity::getLogin, contributor -> contributor)));
+
+        int reposInserted = 0, reposUpdated = 0, reposUnchanged = 0;
+        int contributorsInserted = 0, contributorsUpdated = 0, contributorsUnchanged = 0;
+        List<RepoEntity> syncedRepos = new ArrayList<>();
+        List<RepoEntity> newRepos = new ArrayList<>();
+        List<ContributorEntity> newContributors = new ArrayList<>();
+        List<ContributorEntity> staleContributors = new ArrayList<>();
+
+        for (CrawlResult.Repo crawled : crawl.repos()) {
+            RepoEntity repo = storedRepos.get(crawled.fullName());
+            Map<String, ContributorEntity> remaining = new HashMap<>();
+
+            if (repo == null) {
+                repo = new RepoEntity();
+                copyRepoFields(crawl.org(), crawled, repo);
+                newRepos.add(repo);
+                reposInserted++;
+            } else {
+                remaining.putAll(storedContributors.getOrDefault(repo.getId(), Map.of()));
+                if (crawled.contentHash().equals(repo.getContentHash())) {
+                    reposUnchanged++;
+                } else {
+                    copyRepoFields(crawl.org(), crawled, repo);
+                    reposUpdated++;
+                }
+            }
+            syncedRepos.add(repo);
+
+            if (!crawled.contributorsFetched()) {
+                // Unchanged since the last sync, the stored contributors stay as they are
+                continue;
+            }
+            for (CrawlResult.Contributor crawledContributor : crawled.contributors()) {
+                ContributorEntity contributor = remaining.remove(crawledContributor.login());
+                if (contributor == null) {
+                    contributor = new ContributorEntity();
+                    contributor.setLogin(crawledContributor.login());
+                    contributor.setRepo(repo);
+                    copyContributorFields(crawledContributor, contributor);
+                    newContributors.add(contributor);
+                    contributorsInserted++;
+                } else if (crawledContributor.contentHash().equals(contributor.getContentHash())) {
+                    contributorsUnchanged++;
+                } else {
+                    copyContributorFields(crawledContributor, contributor);
+                    contributorsUpdated++;
+                }
+            }
+            staleContributors.addAll(remaining.values());
+        }
+
+        // Stored rows are managed, so their changed fields are flushed as updates on commit
+        repoRepository.saveAll(newRepos);
+        contributorRepository.saveAll(newContributors);
+        if (!staleContributors.isEmpty()) {
+            contributorRepository.deleteAll(staleContributors);
+        }
+
+        SyncReport report = new SyncReport(reposInserted, reposUpdated, reposUnchanged,
+            contributorsInserted, contributorsUpdated, contributorsUnchanged, staleContributors.size());
+        eventPublisher.publishEvent(report);
+        return new Result(syncedRepos, report);
+    }
+
+    private static void copyRepoFields(String org, CrawlResult.Repo source, RepoEntity target) {
+        target.setFullName(source.fullName());
+        target.setOrg(org);
+        target.setDescription(source.description());
+        target.setStars(source.stars());
+        target.setForks(source.forks());
+        target.setUrl(source.url());
+        target.setWatchersCount(source.watchersCount());
+        target.setLanguage(source.language());
+        target.setOpenIssuesCount(source.openIssuesCount());
+        target.setLicense(source.license());
+        target.setOpenIssues(source.openIssues());
+        target.setPushedAt(source.pushedAt());
+        target.setUpdatedAt(source.updatedAt());
+        target.setContentHash(source.contentHash());
+    }
+
+    private static void copyContributorFields(CrawlResult.Contributor source, ContributorEntity target) {
+        target.setContributions(source.contributions());
+        target.setLocation(source.location());
+        target.setCompany(source.company());
+        target.setContentHash(source.contentHash());
+    }
+
+    /**
+     * @param repos Stored repositories in ranking order
+     * @param report Row counts of the write
+     */
+    public record Result(List<RepoEntity> repos, SyncReport report) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.githubanalyzer.service;
+
+/**
+ * Receives progress of a running crawl. All methods default to doing nothing.
+ */
+public interface CrawlProgress {
+
+    CrawlProgress NONE = new CrawlProgress() {
+    };
+
+    /**
+     * @param stage Stage the crawl has just entered
+     */
+    default void stageStarted(CrawlStage stage) {
+    }
+
+    /**
+     * @param count Repositories ranked so far
+     */
+    default void repositoriesScanned(long count) {
+    }
+
+    /**
+     * @param count Repositories selected for the contributor fetch
+     */
+    default void repositoriesSelected(int count) {
+    }
+
+    /**
+     * @param count Contributors fetched for one more repository
+     */
+    default void contributorsFetched(int count) {
+    }
+
+    /**
+     * @param report Row counts of the database sync
+     * @param transactionMillis Duration of the write transaction
+     */
+    default void synced(SyncReport report, long transactionMillis) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.githubanalyzer.service;
+
+import java.util.regex.Pattern;
+
+/**
+ * What to crawl: the organization, how many of its most recently updated repositories to rank,
+ * and how many repositories and contributors per repository to keep
+ * @param org GitHub organization login
+ * @param reposToFetch Number of recently updated repositories to rank, 0 or less ranks the whole organization
+ * @param topRepos Number of repositories kept, by stargazer count
+ * @param topContributors Number of contributors kept per repository, at most 100
+ */
+public record CrawlRequest(String org, int reposToFetch, int topRepos, int topContributors) {
+
+    private static final Pattern ORG_LOGIN = Pattern.compile("[A-Za-z0-9](?:[A-Za-z0-9-]{0,38})");
+    private static final int MAX_CONTRIBUTORS = 100;
+
+    public CrawlRequest {
+        if (org == null || !ORG_LOGIN.matcher(org).matches()) {
+            throw new IllegalArgumentException("Invalid organization: " + org);
+        }
+        if (topRepos < 1) {
+            throw new IllegalArgumentException("topRepos must be at least 1");
+        }
+        if (topContributors < 1 || topContributors > MAX_CONTRIBUTORS) {
+            throw new IllegalArgumentException("topContributors must be between 1 and " + MAX_CONTRIBUTORS);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.githubanalyzer.service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable outcome of the network phase of a crawl: the selected repositories in ranking order
+ * with their top contributors, already transformed and hashed, ready to be written in one transaction
+ * @param org Crawled organization
+ * @param reposScanned Number of repositories ranked
+ * @param repos Selected repositories, best first
+ * @param requestsAvoided Contributor list requests skipped because a repository did not change since the last sync
+ */
+public record CrawlResult(String org, long reposScanned, List<Repo> repos, long requestsAvoided) {
+
+    public CrawlResult {
+        repos = List.copyOf(repos);
+    }
+
+    /**
+     * @param pushedAt Last push reported by GitHub, null if unknown
+     * @param updatedAt Last update reported by GitHub, null if unknown
+     * @param contentHash Hash of the synced fields, compared with the stored row
+     * @param contributorsFetched False when the repository did not change and its stored contributors are kept
+     * @param contributors Top contributors, most active first, empty when not fetched
+     */
+    public record Repo(String fullName, String description, int stars, int forks, String url, int watchersCount,
+                       String language, int openIssuesCount, String license, String openIssues,
+                       Instant pushedAt, Instant updatedAt, String contentHash,
+                       boolean contributorsFetched, List<Contributor> contributors) {
+
+        public Repo {
+            contributors = List.copyOf(contributors);
+        }
+    }
+
+    /**
+     * @param contentHash Hash of the synced fields, compared with the stored row
+     */
+    public record Contributor(String login, int contributions, String location, String company, String contentHash) {
+    }
+}
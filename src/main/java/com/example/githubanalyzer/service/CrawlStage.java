@@ -0,0 +1,13 @@
+package com.example.githubanalyzer.service;
+
+/**
+ * Stages of a crawl, in the order they run
+ */
+public enum CrawlStage {
+    QUEUED,
+    FETCHING_REPOSITORIES,
+    FETCHING_CONTRIBUTORS,
+    SAVING,
+    COMPLETED,
+    FAILED
+}
@@ -1,31 +1,69 @@
 package com.example.githubanalyzer.service;
 
+import com.example.githubanalyzer.client.GitHubApiException;
 import com.example.githubanalyzer.client.GitHubClient;
+import com.example.githubanalyzer.client.GitHubContributor;
+import com.example.githubanalyzer.client.GitHubRepo;
+import com.example.githubanalyzer.client.GitHubUser;
+import com.example.githubanalyzer.client.TokenPool;
+import com.example.githubanalyzer.dto.ContributorFilter;
+import com.example.githubanalyzer.dto.ContributorTotal;
+import com.example.githubanalyzer.dto.KeysetPage;
+import com.example.githubanalyzer.dto.LeaderboardEntry;
+import com.example.githubanalyzer.dto.RepoContributorRow;
+import com.example.githubanalyzer.dto.RepoFilter;
+import com.example.githubanalyzer.dto.RepoSummary;
+import com.example.githubanalyzer.dto.RepoSyncState;
 import com.example.githubanalyzer.dto.RepoWithContributorDTO;
 import com.example.githubanalyzer.entity.ContributorEntity;
 import com.example.githubanalyzer.entity.RepoEntity;
 import com.example.githubanalyzer.repository.ContributorRepository;
 import com.example.githubanalyzer.repository.RepoRepository;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class GitHubService {
 
     private static final Logger logger = LoggerFactory.getLogger(GitHubService.class);
     private static final int REPOS_TO_FETCH = 100;
+    private static final int MAX_PER_PAGE = 100;
     private static final int TOP_REPOS_COUNT = 5;
     private static final int TOP_CONTRIBUTORS_COUNT = 10;
+    private static final String APACHE_ORG = "apache";
+    private static final int GRAPHQL_BATCH_SIZE = 100;
+    // Contributor list statuses of a removed repository (404) or one too large to list (403, 422)
+    private static final Set<Integer> UNLISTED_CONTRIBUTOR_STATUSES = Set.of(403, 404, 422);
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectWriter repoSummaryWriter = new ObjectMapper().writerFor(RepoSummary.class);
 
     @Autowired
     private RepoRepository repoRepository;
@@ -36,162 +74,640 @@ public class GitHubService {
     @Autowired
     private GitHubClient gitHubClient;
 
+    @Autowired
+    @Qualifier("githubCrawlExecutor")
+    private Executor crawlExecutor;
+
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private CrawlPersister crawlPersister;
+
+    /**
+     * Receives the crawl stage timers and written row counters
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Organizations crawled at startup and by the scheduled refresh
+     */
+    @Value("${github.crawl.orgs:apache}")
+    private List<String> orgs = List.of(APACHE_ORG);
+
+    /**
+     * Default number of recently updated repositories to rank, 0 or less ranks the whole organization
+     */
+    @Value("${github.crawl.repos-to-fetch:100}")
+    private int reposToFetch = REPOS_TO_FETCH;
+
+    /**
+     * Default number of repositories kept per organization
+     */
+    @Value("${github.crawl.top-repos:5}")
+    private int topRepos = TOP_REPOS_COUNT;
+
+    /**
+     * Default number of contributors kept per repository
+     */
+    @Value("${github.crawl.top-contributors:10}")
+    private int topContributors = TOP_CONTRIBUTORS_COUNT;
+
+    /**
+     * Largest number of repositories a crawl request may keep; the ranking holds that many in memory
+     */
+    @Value("${github.crawl.max-top-repos:500}")
+    private int maxTopRepos = 500;
+
+    /**
+     * Largest number of recently updated repositories a crawl request may rank, also the number ranked
+     * when a request asks for the whole organization
+     */
+    @Value("${github.crawl.max-repos-to-fetch:10000}")
+    private int maxReposToFetch = 10_000;
+
+    /**
+     * How contributor profiles are fetched
+     */
+    @Value("${github.users.profile-backend:rest}")
+    private ProfileBackend profileBackend = ProfileBackend.REST;
+
+    private volatile SyncReport lastSyncReport;
+
+    private final TransactionTimer writeTransactionTimer = new TransactionTimer();
+
+    /**
+     * Organizations crawled at startup and by the scheduled refresh
+     * @return Organization logins in configuration order
+     */
+    public List<String> getOrgs() {
+        return orgs;
+    }
+
+    /**
+     * Fail startup on a crawl configuration the first crawl would reject: no organizations, an invalid login
+     * or default parameters out of range
+     * @throws IllegalStateException if the configuration is invalid
+     */
+    @PostConstruct
+    void validateCrawlConfiguration() {
+        if (orgs == null || orgs.isEmpty()) {
+            throw new IllegalStateException("github.crawl.orgs must name at least one organization");
+        }
+        for (String org : orgs) {
+            try {
+                crawlRequest(org, null, null, null);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Invalid crawl configuration: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Build a crawl request, taking the configured default for every parameter that is not given.
+     * A request for the whole organization ranks at most the {@code maxReposToFetch} most recently updated
+     * repositories, so it is bounded like any other request.
+     * @param org Organization login
+     * @param reposToFetch Number of recently updated repositories to rank, 0 or less for the whole organization,
+     *                     null for the default
+     * @param topRepos Number of repositories kept, null for the default
+     * @param topContributors Number of contributors kept per repository, null for the default
+     * @return Crawl request
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    public CrawlRequest crawlRequest(String org, Integer reposToFetch, Integer topRepos, Integer topContributors) {
+        int toFetch = Objects.requireNonNullElse(reposToFetch, this.reposToFetch);
+        CrawlRequest request = new CrawlRequest(org,
+            toFetch > 0 ? toFetch : maxReposToFetch,
+            Objects.requireNonNullElse(topRepos, this.topRepos),
+            Objects.requireNonNullElse(topContributors, this.topContributors));
+        if (request.topRepos() > maxTopRepos) {
+            throw new IllegalArgumentException("topRepos must be at most " + maxTopRepos);
+        }
+        if (request.reposToFetch() > maxReposToFetch) {
+            throw new IllegalArgumentException("reposToFetch must be at most " + maxReposToFetch);
+        }
+        return request;
+    }
+
     /**
-     * Fetches the top 5 Apache repositories by stargazer count from the 100 most recently updated repos,
-     * along with their top 10 contributors, and saves all data to the database.
+     * Fetches the top 5 Apache repositories by stargazer count from the most recently updated repos,
+     * along with their top 10 contributors, and syncs them into the database.
+     * Rows are keyed by repository full name and (repository, login); running the sync again
+     * only writes rows whose content changed, see {@link #getLastSyncReport()}.
+     * Repository pages are streamed and ranked one at a time, so only the current top candidates are kept.
      * @return List of repository information
      */
-    @Transactional
     public List<RepoEntity> fetchAndSaveTopApacheRepos() {
+        return fetchAndSaveTopRepos(crawlRequest(APACHE_ORG, null, null, null), CrawlProgress.NONE);
+    }
+
+    /**
+     * Fetch and sync the top repositories of an organization, reporting each stage and progress count.
+     * All GitHub requests finish before the write transaction begins, so no database connection
+     * is held during the network fan-out.
+     * @param request Organization and ranking parameters
+     * @param progress Receives the progress of the crawl
+     * @return List of repository information
+     */
+    public List<RepoEntity> fetchAndSaveTopRepos(CrawlRequest request, CrawlProgress progress) {
+        return sync(request, progress, false);
+    }
+
+    /**
+     * Delta refresh of the top repositories of an organization. The repository listing is always re-read, with
+     * conditional requests, and the repository rows are updated from it. Contributors and their profiles
+     * are only fetched again for repositories whose pushed_at or updated_at changed since the last sync,
+     * so the cost of a refresh follows the volume of changes rather than the size of the organization.
+     * @param request Organization and ranking parameters
+     * @param progress Receives the progress of the crawl
+     * @return List of repository information
+     */
+    public List<RepoEntity> refreshChangedRepos(CrawlRequest request, CrawlProgress progress) {
+        return sync(request, progress, true);
+    }
+
+    private List<RepoEntity> sync(CrawlRequest request, CrawlProgress progress, boolean onlyChanged) {
         try {
-            logger.info("Fetching {} recently updated Apache repositories", REPOS_TO_FETCH);
-
-            // 1. Fetch recently updated repositories from Apache organization
-            String reposResponse = gitHubClient.getApacheRepos(REPOS_TO_FETCH);
-            JsonNode repos = objectMapper.readTree(reposResponse);
-
-            // 2. Convert to list and sort by stargazer count
-            List<JsonNode> reposList = new ArrayList<>();
-            repos.forEach(reposList::add);
-
-            reposList.sort((a, b) -> {
-                int bStars = b.has("stargazers_count") && !b.get("stargazers_count").isNull() ? 
-                    b.get("stargazers_count").asInt() : 0;
-                int aStars = a.has("stargazers_count") && !a.get("stargazers_count").isNull() ? 
-                    a.get("stargazers_count").asInt() : 0;
-                return Integer.compare(bStars, aStars);
-            });
+            // 1. Fetch and transform everything outside of any transaction
+            CrawlResult crawl = crawlTopRepos(request, progress, onlyChanged);
+
+            // 2. Upsert repositories by full name and contributors by (repository, login) in one short transaction
+            progress.stageStarted(CrawlStage.SAVING);
+            long start = System.nanoTime();
+            CrawlPersister.Result result = crawlPersister.persist(crawl);
+            long transactionNanos = System.nanoTime() - start;
+            long transactionMillis = writeTransactionTimer.record(transactionNanos);
+            recordStage("persist", transactionNanos);
+            recordRowsWritten(result.report());
+
+            lastSyncReport = result.report();
+            progress.synced(result.report(), transactionMillis);
+
+            logger.info("Successfully synced {} repositories of {} in a {} ms transaction: {}",
+                result.repos().size(), request.org(), transactionMillis, result.report());
+            if (onlyChanged) {
+                long unchanged = crawl.repos().stream().filter(repo -> !repo.contributorsFetched()).count();
+                // Listing pages answered with 304 show in the conditional cache hits below; its validators are
+                // only kept in memory, so the first refresh after a restart reads every page in full
+                logger.info("Delta refresh of {}: {} of {} repositories unchanged since the last sync, {} contributor list requests avoided",
+                    request.org(), unchanged, crawl.repos().size(), crawl.requestsAvoided());
+            }
+            logger.info("Conditional request cache: {}", gitHubClient.getConditionalCacheStats());
+            logger.info("User profile cache: {}", userProfileCache.getStats());
+            return result.repos();
 
-            // 3. Take top 5 repositories
-            List<JsonNode> topRepos = reposList.stream()
-                .limit(TOP_REPOS_COUNT)
-                .collect(Collectors.toList());
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            logger.error("Error fetching and processing repositories of {}: {}", request.org(), cause.getMessage(), cause);
+            throw new RuntimeException("Error fetching and processing repositories: " + cause.getMessage(), cause);
+        }
+    }
 
-            logger.info("Selected top {} repositories by stargazer count", TOP_REPOS_COUNT);
-
-            // 4. Process each repository and save to database
-            List<RepoEntity> savedRepos = new ArrayList<>();
-
-            for (JsonNode repo : topRepos) {
-                String repoName = repo.has("name") && !repo.get("name").isNull() ? 
-                                repo.get("name").asText() : "unknown";
-                logger.info("Processing repository: {}", repoName);
-
-                // Create and populate repository entity
-                RepoEntity repoEntity = new RepoEntity();
-                repoEntity.setFullName(repo.has("full_name") && !repo.get("full_name").isNull() ? 
-                                     repo.get("full_name").asText() : repoName);
-                repoEntity.setDescription(repo.has("description") && !repo.get("description").isNull() ? 
-                                        repo.get("description").asText() : "No description");
-                repoEntity.setStars(repo.has("stargazers_count") && !repo.get("stargazers_count").isNull() ? 
-                                   repo.get("stargazers_count").asInt() : 0);
-                repoEntity.setForks(repo.has("forks_count") && !repo.get("forks_count").isNull() ? 
-                                   repo.get("forks_count").asInt() : 0);
-                repoEntity.setUrl(repo.has("html_url") && !repo.get("html_url").isNull() ? 
-                                repo.get("html_url").asText() : "");
-                repoEntity.setWatchersCount(repo.has("watchers_count") && !repo.get("watchers_count").isNull() ? 
-                                         repo.get("watchers_count").asInt() : 0);
-                repoEntity.setLanguage(repo.has("language") && !repo.get("language").isNull() ? 
-                                     repo.get("language").asText() : "Not specified");
-                repoEntity.setOpenIssuesCount(repo.has("open_issues_count") && !repo.get("open_issues_count").isNull() ? 
-                                           repo.get("open_issues_count").asInt() : 0);
-
-                // Handle license information
-                if (repo.has("license") && !repo.get("license").isNull() && 
-                    repo.get("license").has("name") && !repo.get("license").get("name").isNull()) {
-                    repoEntity.setLicense(repo.get("license").get("name").asText());
-                } else {
-                    repoEntity.setLicense("No license");
-                }
+    /**
+     * Network phase of the crawl: rank the repositories of an organization and fetch the contributors of
+     * the top ones, optionally skipping the contributors of repositories that did not change.
+     * Only reads the stored sync state of the selected repositories.
+     * @param request Organization and ranking parameters
+     * @param progress Receives the progress of the crawl
+     * @param onlyChanged Keep the stored contributors of repositories whose pushed_at and updated_at are unchanged
+     * @return Selected repositories with their contributors, best first
+     */
+    public CrawlResult crawlTopRepos(CrawlRequest request, CrawlProgress progress, boolean onlyChanged) {
+        String org = request.org();
+        int reposToFetch = request.reposToFetch();
+        progress.stageStarted(CrawlStage.FETCHING_REPOSITORIES);
+        if (reposToFetch > 0) {
+            logger.info("Fetching {} recently updated repositories of {}", reposToFetch, org);
+        } else {
+            logger.info("Fetching all repositories of {}", org);
+        }
 
-                // Get open issues information
-                String openIssues = "Open issues: " + (repo.has("open_issues") && !repo.get("open_issues").isNull() ? 
-                                                    repo.get("open_issues").asText() : "0");
-                repoEntity.setOpenIssues(openIssues);
+        // 1. Stream recently updated repositories of the organization page by page
+        int perPage = reposToFetch > 0 ? Math.min(reposToFetch, MAX_PER_PAGE) : MAX_PER_PAGE;
+        int maxPages = reposToFetch > 0 ? (reposToFetch + perPage - 1) / perPage : 0;
+        Iterator<List<GitHubRepo>> pages = gitHubClient.getOrgRepoPages(org, perPage, maxPages);
+
+        // 2. Rank repositories by stargazer count as they arrive, keeping only the top K in a bounded heap
+        TopKSelector<GitHubRepo> repoSelector = new TopKSelector<>(request.topRepos(), GitHubService::stars);
+
+        // Pages are ranked while the next one is fetched, so the two stages are timed page by page
+        long fetchNanos = 0;
+        long rankNanos = 0;
+        long start = System.nanoTime();
+        while (pages.hasNext() && (reposToFetch <= 0 || repoSelector.getOfferedCount() < reposToFetch)) {
+            List<GitHubRepo> page = pages.next();
+            long fetched = System.nanoTime();
+            fetchNanos += fetched - start;
+            for (GitHubRepo repo : page) {
+                if (reposToFetch > 0 && repoSelector.getOfferedCount() >= reposToFetch) break;
+                repoSelector.offer(repo);
+            }
+            progress.repositoriesScanned(repoSelector.getOfferedCount());
+            start = System.nanoTime();
+            rankNanos += start - fetched;
+        }
+        fetchNanos += System.nanoTime() - start;
+
+        // 3. Take top K repositories
+        start = System.nanoTime();
+        List<GitHubRepo> topRepos = repoSelector.result();
+        recordStage("fetch", fetchNanos);
+        recordStage("rank", rankNanos + System.nanoTime() - start);
+
+        logger.info("Ranked {} repositories of {}", repoSelector.getOfferedCount(), org);
+        logger.info("Selected top {} repositories by stargazer count", request.topRepos());
+        progress.stageStarted(CrawlStage.FETCHING_CONTRIBUTORS);
+        progress.repositoriesSelected(topRepos.size());
+
+        // 4. On a delta refresh, look up what the last sync stored for the selected repositories
+        List<String> fullNames = new ArrayList<>();
+        for (GitHubRepo repo : topRepos) {
+            String repoName = Objects.requireNonNullElse(repo.name(), "unknown");
+            fullNames.add(Objects.requireNonNullElse(repo.fullName(), org + "/" + repoName));
+        }
+        Map<String, RepoSyncState> syncStates = onlyChanged
+            ? repoRepository.findSyncStates(fullNames).stream()
+                .collect(Collectors.toMap(RepoSyncState::fullName, state -> state))
+            : Map.of();
 
-                // Save repository to database
-                repoEntity = repoRepository.save(repoEntity);
+        // 5. Start fetching contributors and their profiles for all changed repositories in parallel
+        long enrichStart = System.nanoTime();
+        List<CompletableFuture<List<CrawlResult.Contributor>>> contributorFutures = new ArrayList<>();
+        List<Integer> changed = new ArrayList<>();
+        long requestsAvoided = 0;
 
-                // 5. Fetch top contributors for this repository
-                processContributors(repoName, repoEntity);
+        for (int i = 0; i < topRepos.size(); i++) {
+            RepoSyncState state = syncStates.get(fullNames.get(i));
+            if (state != null && isUnchanged(topRepos.get(i), state)) {
+                // The contributor list is skipped; profiles would mostly have come from the profile cache anyway
+                logger.info("Repository unchanged since the last sync: {}", fullNames.get(i));
+                requestsAvoided++;
+                contributorFutures.add(null);
+            } else {
+                logger.info("Processing repository: {}", fullNames.get(i));
+                contributorFutures.add(null);
+                changed.add(i);
+            }
+        }
+        List<CompletableFuture<List<CrawlResult.Contributor>>> fetched = fetchContributors(
+            changed.stream().map(fullNames::get).collect(Collectors.toList()), request.topContributors());
+        for (int i = 0; i < changed.size(); i++) {
+            contributorFutures.set(changed.get(i), fetched.get(i));
+        }
 
-                savedRepos.add(repoEntity);
+        // 6. Combine each repository with its contributors, keeping the ranking order
+        List<CrawlResult.Repo> crawledRepos = new ArrayList<>();
+        for (int i = 0; i < topRepos.size(); i++) {
+            CompletableFuture<List<CrawlResult.Contributor>> contributorFuture = contributorFutures.get(i);
+            if (contributorFuture == null) {
+                crawledRepos.add(toCrawledRepo(topRepos.get(i), org, fullNames.get(i), false, List.of()));
+                continue;
             }
+            List<CrawlResult.Contributor> contributors = contributorFuture.join();
+            progress.contributorsFetched(contributors.size());
+            CrawlResult.Repo crawledRepo = toCrawledRepo(topRepos.get(i), org, fullNames.get(i), true, contributors);
+            crawledRepos.add(crawledRepo);
+            logger.info("Fetched {} contributors for repository: {}", contributors.size(), crawledRepo.fullName());
+        }
+        recordStage("enrich", System.nanoTime() - enrichStart);
 
-            logger.info("Successfully processed and saved {} repositories with their contributors", savedRepos.size());
-            return savedRepos;
+        return new CrawlResult(org, repoSelector.getOfferedCount(), crawledRepos, requestsAvoided);
+    }
 
-        } catch (Exception e) {
-            logger.error("Error fetching and processing repositories: {}", e.getMessage(), e);
-            throw new RuntimeException("Error fetching and processing repositories: " + e.getMessage(), e);
+    /**
+     * A repository is unchanged when GitHub reports the same push and update times the last sync stored
+     */
+    private static boolean isUnchanged(GitHubRepo repo, RepoSyncState state) {
+        Instant pushedAt = parseTimestamp(repo.pushedAt());
+        Instant updatedAt = parseTimestamp(repo.updatedAt());
+        return pushedAt != null && updatedAt != null
+            && pushedAt.equals(state.pushedAt()) && updatedAt.equals(state.updatedAt());
+    }
+
+    /**
+     * Parse an ISO-8601 timestamp from a GitHub payload
+     * @return The instant, or null if missing or malformed
+     */
+    private static Instant parseTimestamp(String timestamp) {
+        if (timestamp == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(timestamp);
+        } catch (DateTimeParseException e) {
+            return null;
         }
     }
 
     /**
-     * Process contributors for a repository
-     * @param repoName Repository name
-     * @param repoEntity Repository entity
+     * Record the duration of one crawl stage: fetch (repository pages), rank (top repositories),
+     * enrich (contributors and their profiles) or persist (write transaction)
      */
-    private void processContributors(String repoName, RepoEntity repoEntity) throws Exception {
-        logger.info("Fetching contributors for repository: {}", repoName);
+    private void recordStage(String stage, long elapsedNanos) {
+        meterRegistry.timer("github.crawl.stage", "stage", stage).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
 
-        String contributorsResponse = gitHubClient.getRepoContributors(repoName, TOP_CONTRIBUTORS_COUNT);
-        JsonNode contributors = objectMapper.readTree(contributorsResponse);
+    /**
+     * Count the rows a sync inserted, updated and deleted, by table
+     */
+    private void recordRowsWritten(SyncReport report) {
+        countRowsWritten("repo", "inserted", report.reposInserted());
+        countRowsWritten("repo", "updated", report.reposUpdated());
+        countRowsWritten("contributor", "inserted", report.contributorsInserted());
+        countRowsWritten("contributor", "updated", report.contributorsUpdated());
+        countRowsWritten("contributor", "deleted", report.contributorsDeleted());
+    }
 
-        List<ContributorEntity> contributorEntities = new ArrayList<>();
+    private void countRowsWritten(String table, String operation, int rows) {
+        meterRegistry.counter("github.crawl.rows.written", "table", table, "operation", operation).increment(rows);
+    }
 
-        int count = 0;
-        for (JsonNode contributor : contributors) {
-            if (count >= TOP_CONTRIBUTORS_COUNT) break;
+    /**
+     * Get the row counts of the most recent sync
+     * @return Report of the last sync, null before the first sync
+     */
+    public SyncReport getLastSyncReport() {
+        return lastSyncReport;
+    }
+
+    /**
+     * Get the durations of the crawl write transactions
+     * @return Transaction count and last, maximum, total and average duration
+     */
+    public TransactionTimer.Stats getWriteTransactionStats() {
+        return writeTransactionTimer.getStats();
+    }
+
+    /**
+     * Transform a GitHub repository payload, filling in defaults for missing fields
+     * @param repo Repository payload
+     * @param org Organization the repository was listed under
+     * @param fullName Repository full name
+     * @param contributorsFetched False when the stored contributors are kept
+     * @param contributors Top contributors of the repository
+     * @return Crawled repository with its content hash
+     */
+    private static CrawlResult.Repo toCrawledRepo(GitHubRepo repo, String org, String fullName, boolean contributorsFetched,
+                                                  List<CrawlResult.Contributor> contributors) {
+        String description = Objects.requireNonNullElse(repo.description(), "No description");
+        int stars = Objects.requireNonNullElse(repo.stargazersCount(), 0);
+        int forks = Objects.requireNonNullElse(repo.forksCount(), 0);
+        String url = Objects.requireNonNullElse(repo.htmlUrl(), "");
+        int watchersCount = Objects.requireNonNullElse(repo.watchersCount(), 0);
+        String language = Objects.requireNonNullElse(repo.language(), "Not specified");
+        int openIssuesCount = Objects.requireNonNullElse(repo.openIssuesCount(), 0);
+
+        // Handle license information
+        String license = repo.license() != null && repo.license().name() != null ? repo.license().name() : "No license";
+
+        // Get open issues information
+        String openIssues = "Open issues: " + Objects.requireNonNullElse(repo.openIssues(), 0);
+
+        Instant pushedAt = parseTimestamp(repo.pushedAt());
+        Instant updatedAt = parseTimestamp(repo.updatedAt());
+
+        String contentHash = ContentHash.of(org, description, stars, forks, url, watchersCount, language,
+            openIssuesCount, license, openIssues, pushedAt, updatedAt);
+        return new CrawlResult.Repo(fullName, description, stars, forks, url, watchersCount, language,
+            openIssuesCount, license, openIssues, pushedAt, updatedAt, contentHash, contributorsFetched, contributors);
+    }
+
+    /**
+     * Fetch the top contributors of each repository and their user profiles with the configured backend.
+     * Nothing blocks on the crawl executor, so repositories and users share one bounded pool.
+     * @param fullNames Repository full names
+     * @param count Number of contributors kept per repository
+     * @return Contributors of each repository in the order returned by GitHub
+     */
+    private List<CompletableFuture<List<CrawlResult.Contributor>>> fetchContributors(List<String> fullNames, int count) {
+        List<CompletableFuture<List<GitHubContributor>>> contributorLists = fullNames.stream()
+            .map(fullName -> fetchTopContributors(fullName, count))
+            .collect(Collectors.toList());
+
+        if (profileBackend == ProfileBackend.REST) {
+            // Profiles of each repository are requested as soon as its contributors are known
+            return contributorLists.stream()
+                .map(list -> list.thenCompose(contributors ->
+                    withProfiles(contributors, login -> userProfileCache.get(login, this::fetchUserInfo))))
+                .collect(Collectors.toList());
+        }
+
+        // Once every list is in, the distinct logins of all repositories are looked up together in batches
+        CompletableFuture<Map<String, CompletableFuture<GitHubUser>>> profiles =
+            CompletableFuture.allOf(contributorLists.toArray(new CompletableFuture[0]))
+                .thenApply(done -> userProfileCache.getAll(contributorLists.stream()
+                    .flatMap(list -> list.join().stream())
+                    .map(GitHubContributor::login)
+                    .collect(Collectors.toList()), this::fetchUserInfoBatches));
+        return contributorLists.stream()
+            .map(list -> list.thenCompose(contributors ->
+                profiles.thenCompose(byLogin -> withProfiles(contributors, byLogin::get))))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Fetch the contributors of a repository and keep the most active ones. Contributors without a login
+     * are skipped: they have no profile, and a repository stores each login once.
+     * A repository whose contributor list GitHub does not serve, because it was removed or its history
+     * is too large to list, keeps no contributors instead of failing the crawl.
+     */
+    private CompletableFuture<List<GitHubContributor>> fetchTopContributors(String fullName, int count) {
+        return supplyAsync(() -> {
+            logger.info("Fetching contributors for repository: {}", fullName);
+            try {
+                return gitHubClient.getRepoContributors(fullName, count);
+            } catch (GitHubApiException e) {
+                if (e.isRateLimited() || !UNLISTED_CONTRIBUTOR_STATUSES.contains(e.getStatusCode())) {
+                    throw e;
+                }
+                logger.warn("Skipping contributors of {}: {}", fullName, e.getMessage());
+                return List.<GitHubContributor>of();
+            }
+        }).thenApply(contributors -> contributors.stream()
+            .filter(contributor -> contributor.login() != null)
+            .collect(TopKSelector.collector(count, GitHubService::contributions)));
+    }
+
+    /**
+     * Combine contributors with their user profiles, shared across repositories through the profile cache
+     * @param contributors Contributors of one repository
+     * @param profileLookup Profile of a login
+     * @return Contributors in the given order
+     */
+    private static CompletableFuture<List<CrawlResult.Contributor>> withProfiles(
+            List<GitHubContributor> contributors, Function<String, CompletableFuture<GitHubUser>> profileLookup) {
+        List<CompletableFuture<CrawlResult.Contributor>> contributorFutures = new ArrayList<>();
 
-            String login = contributor.has("login") && !contributor.get("login").isNull() ? 
-                        contributor.get("login").asText() : "unknown";
-            int contributions = contributor.has("contributions") && !contributor.get("contributions").isNull() ? 
-                             contributor.get("contributions").asInt() : 0;
+        for (GitHubContributor contributor : contributors) {
+            String login = contributor.login();
+            int contributions = Objects.requireNonNullElse(contributor.contributions(), 0);
 
             logger.info("Processing contributor: {} with {} contributions", login, contributions);
 
-            // Get detailed user information
-            String userInfoResponse = gitHubClient.getUserInfo(login);
-            JsonNode userInfo = objectMapper.readTree(userInfoResponse);
+            contributorFutures.add(profileLookup.apply(login)
+                .thenApply(userInfo -> toCrawledContributor(login, contributions, userInfo)));
+        }
+
+        return CompletableFuture.allOf(contributorFutures.toArray(new CompletableFuture[0]))
+            .thenApply(done -> contributorFutures.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList()));
+    }
 
-            // Create and populate contributor entity
-            ContributorEntity contributorEntity = new ContributorEntity();
-            contributorEntity.setLogin(login);
-            contributorEntity.setContributions(contributions);
-            contributorEntity.setRepo(repoEntity);
+    private static long stars(GitHubRepo repo) {
+        return Objects.requireNonNullElse(repo.stargazersCount(), 0);
+    }
+
+    private static long contributions(GitHubContributor contributor) {
+        return Objects.requireNonNullElse(contributor.contributions(), 0);
+    }
 
-            // Set location and company if available
-            contributorEntity.setLocation(userInfo.has("location") && !userInfo.get("location").isNull() ? 
-                                       userInfo.get("location").asText() : "Not specified");
-            contributorEntity.setCompany(userInfo.has("company") && !userInfo.get("company").isNull() ? 
-                                      userInfo.get("company").asText() : "Not specified");
+    private CompletableFuture<GitHubUser> fetchUserInfo(String login) {
+        return supplyAsync(() -> gitHubClient.getUserInfo(login));
+    }
 
-            contributorEntities.add(contributorEntity);
-            count++;
+    /**
+     * Fetch user profiles with GraphQL, up to 100 logins per request, sending the requests in parallel
+     * @param logins GitHub usernames
+     * @return Profiles by login
+     */
+    private CompletableFuture<Map<String, GitHubUser>> fetchUserInfoBatches(List<String> logins) {
+        List<CompletableFuture<Map<String, GitHubUser>>> batches = new ArrayList<>();
+        for (int from = 0; from < logins.size(); from += GRAPHQL_BATCH_SIZE) {
+            List<String> batch = logins.subList(from, Math.min(from + GRAPHQL_BATCH_SIZE, logins.size()));
+            batches.add(supplyAsync(() -> gitHubClient.getUsersInfo(batch)));
         }
+        logger.info("Fetching {} user profiles in {} GraphQL requests", logins.size(), batches.size());
+
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture[0]))
+            .thenApply(done -> {
+                Map<String, GitHubUser> profiles = new HashMap<>();
+                batches.forEach(batch -> profiles.putAll(batch.join()));
+                return profiles;
+            });
+    }
 
-        // Save all contributors
-        contributorRepository.saveAll(contributorEntities);
-        logger.info("Saved {} contributors for repository: {}", contributorEntities.size(), repoName);
+    /**
+     * Combine contributor and user payloads, filling in defaults for missing profile fields
+     */
+    private static CrawlResult.Contributor toCrawledContributor(String login, int contributions, GitHubUser userInfo) {
+        // Set location and company if available
+        String location = Objects.requireNonNullElse(userInfo.location(), "Not specified");
+        String company = Objects.requireNonNullElse(userInfo.company(), "Not specified");
+
+        return new CrawlResult.Contributor(login, contributions, location, company,
+            ContentHash.of(contributions, location, company));
+    }
+
+    /**
+     * Run a GitHub call on the crawl executor
+     */
+    private <T> CompletableFuture<T> supplyAsync(GitHubCall<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, crawlExecutor);
+    }
+
+    @FunctionalInterface
+    private interface GitHubCall<T> {
+        T call() throws Exception;
     }
 
     /**
-     * Get all repositories from database
-     * @return List of repositories
+     * Get one page of repositories from database without their contributors, most starred first
+     * @param filter Filters, null fields match every repository
+     * @param cursor Cursor returned with the previous page, null for the first page
+     * @param limit Page size, defaults to {@value #DEFAULT_PAGE_SIZE}
+     * @return Repository summaries and the cursor of the next page
+     * @throws IllegalArgumentException if the cursor is invalid or the limit is out of range
      */
     @Transactional(readOnly = true)
-    public List<RepoEntity> getAllRepos() {
-        return repoRepository.findAll();
+    public KeysetPage<RepoSummary> getRepos(RepoFilter filter, String cursor, Integer limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        int pageSize = pageSize(limit);
+        List<RepoSummary> rows = repoRepository.findRepoSummaryPage(after.intKey(), after.id(),
+            filter.org(), filter.language(), filter.license(), filter.minStars(), Limit.of(pageSize + 1));
+        return page(rows, pageSize, repo -> new PageCursor(repo.stars(), repo.id()));
     }
 
     /**
-     * Get all contributors from database
-     * @return List of contributors
+     * Get one page of contributors from database, most contributions first, each with the id and
+     * name of its repository
+     * @param filter Filters, null fields match every contributor
+     * @param cursor Cursor returned with the previous page, null for the first page
+     * @param limit Page size, defaults to {@value #DEFAULT_PAGE_SIZE}
+     * @return Contributor projections and the cursor of the next page
+     * @throws IllegalArgumentException if the cursor is invalid or the limit is out of range
      */
     @Transactional(readOnly = true)
-    public List<ContributorEntity> getAllContributors() {
-        return contributorRepository.findAll();
+    public KeysetPage<RepoWithContributorDTO> getContributors(ContributorFilter filter, String cursor, Integer limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        int pageSize = pageSize(limit);
+        List<RepoWithContributorDTO> rows = contributorRepository.findContributorPage(after.intKey(), after.id(),
+            filter.repo(), filter.company(), filter.minContributions(), Limit.of(pageSize + 1));
+        return page(rows, pageSize, contributor -> new PageCursor(contributor.contributions(), contributor.id()));
+    }
+
+    private static int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+    /**
+     * Cut the extra row fetched beyond the page size; its presence means there is a next page
+     */
+    private static <T> KeysetPage<T> page(List<T> rows, int pageSize, Function<T, PageCursor> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new KeysetPage<>(items, cursorOf.apply(items.get(pageSize - 1)).encode());
+    }
+
+    /**
+     * Load the small, bounded views the read snapshot serves in one read-only transaction.
+     * The repository and contributor listings are paged from the database instead.
+     * @param version Version of the stored data being loaded
+     * @param eTag Entity tag of the responses served from the snapshot
+     * @return Immutable read snapshot
+     */
+    @Transactional(readOnly = true)
+    public ReadSnapshot loadReadSnapshot(long version, String eTag) {
+        List<LeaderboardEntry> leaderboard = getLeaderboard();
+        return new ReadSnapshot(version, eTag,
+            fetchTopApacheRepos(),
+            contributionsByLogin(leaderboard),
+            leaderboard);
+    }
+
+    /**
+     * Rank every login by its contributions summed over all stored repositories.
+     * Logins with equal sums share a rank and the next rank is skipped, e.g. 1, 2, 2, 4.
+     * @return Leaderboard, largest sum first
+     */
+    @Transactional(readOnly = true)
+    public List<LeaderboardEntry> getLeaderboard() {
+        List<ContributorTotal> totals = contributorRepository.findContributorTotals();
+        List<LeaderboardEntry> leaderboard = new ArrayList<>(totals.size());
+        for (int i = 0; i < totals.size(); i++) {
+            ContributorTotal total = totals.get(i);
+            int rank = i > 0 && totals.get(i - 1).contributions() == total.contributions()
+                ? leaderboard.get(i - 1).rank()
+                : i + 1;
+            leaderboard.add(new LeaderboardEntry(rank, total.login(), total.contributions(), total.repos()));
+        }
+        return leaderboard;
     }
 
     /**
@@ -200,57 +716,120 @@ public class GitHubService {
      */
     @Transactional(readOnly = true)
     public String getFormattedRepoAndContributorInfo() {
-        List<RepoEntity> repos = repoRepository.findAll();
-        StringBuilder result = new StringBuilder("Top Apache Repositories and Contributors:\n\n");
-
-        for (RepoEntity repo : repos) {
-            result.append("Repository: ").append(repo.getFullName())
-                  .append(" (⭐ ").append(repo.getStars()).append(")\n")
-                  .append("Language: ").append(repo.getLanguage()).append("\n")
-                  .append("Watchers: ").append(repo.getWatchersCount()).append("\n")
-                  .append("Open Issues: ").append(repo.getOpenIssuesCount()).append("\n")
-                  .append("License: ").append(repo.getLicense()).append("\n")
-                  .append("Contributors:\n");
-
-            for (ContributorEntity contributor : repo.getContributors()) {
-                result.append("  - ").append(repo.getFullName())
-                      .append(" - ").append(contributor.getLogin())
-                      .append(", location: ").append(contributor.getLocation())
-                      .append(", company: ").append(contributor.getCompany())
-                      .append(", contributions: ").append(contributor.getContributions())
-                      .append("\n");
+        StringWriter result = new StringWriter();
+        try {
+            writeFormattedRepoAndContributorInfo(result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Write the formatted repository and contributor information row by row.
+     * Only the current row is held in memory, so the output size is not bounded by the heap.
+     * @param writer Destination of the report, not closed
+     * @throws IOException if the writer fails
+     */
+    @Transactional(readOnly = true)
+    public void writeFormattedRepoAndContributorInfo(Writer writer) throws IOException {
+        writer.write("Top Repositories and Contributors:\n\n");
+
+        try (Stream<RepoContributorRow> rows = repoRepository.streamRepoContributorRows()) {
+            Long currentRepoId = null;
+            for (RepoContributorRow row : (Iterable<RepoContributorRow>) rows::iterator) {
+                if (!row.repoId().equals(currentRepoId)) {
+                    if (currentRepoId != null) {
+                        writer.write("\n");
+                    }
+                    currentRepoId = row.repoId();
+                    writer.write("Repository: " + row.fullName() + " (⭐ " + row.stars() + ")\n"
+                        + "Language: " + row.language() + "\n"
+                        + "Watchers: " + row.watchersCount() + "\n"
+                        + "Open Issues: " + row.openIssuesCount() + "\n"
+                        + "License: " + row.license() + "\n"
+                        + "Contributors:\n");
+                }
+
+                if (row.contributorId() != null) {
+                    writer.write("  - " + row.fullName()
+                        + " - " + row.login()
+                        + ", location: " + row.location()
+                        + ", company: " + row.company()
+                        + ", contributions: " + row.contributions()
+                        + "\n");
+                }
+            }
+            if (currentRepoId != null) {
+                writer.write("\n");
             }
+        }
+    }
 
-            result.append("\n");
+    /**
+     * Write all repositories as newline-delimited JSON, one repository per line
+     * @param out Destination of the JSON lines, not closed
+     * @throws IOException if writing fails
+     */
+    @Transactional(readOnly = true)
+    public void writeReposAsNdjson(OutputStream out) throws IOException {
+        try (Stream<RepoSummary> repos = repoRepository.streamRepoSummaries()) {
+            for (RepoSummary repo : (Iterable<RepoSummary>) repos::iterator) {
+                out.write(repoSummaryWriter.writeValueAsBytes(repo));
+                out.write('\n');
+            }
         }
+    }
 
-        return result.toString();
+    /**
+     * Get the GitHub rate limit budget of each access token and how long requests currently wait for it
+     * @return Rate limit statistics per token
+     */
+    public List<TokenPool.TokenStats> getRateLimitStats() {
+        return gitHubClient.getRateLimitStats();
+    }
+
+    /**
+     * Get statistics of the GitHub response caches
+     * @return Cache statistics by cache name
+     */
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("conditionalRequests", gitHubClient.getConditionalCacheStats());
+        stats.put("userProfiles", userProfileCache.getStats());
+        return stats;
     }
 
     // Legacy methods for backward compatibility
 
+    /**
+     * Get the contributions of each login summed over all stored repositories
+     * @return Summed contributions by login, largest first
+     */
     @Transactional(readOnly = true)
     public Map<String, Integer> getTopContributors() {
-        Map<String, Integer> contributionsMap = new HashMap<>();
-        List<ContributorEntity> contributors = contributorRepository.findAll();
+        return contributionsByLogin(getLeaderboard());
+    }
 
-        for (ContributorEntity contributor : contributors) {
-            contributionsMap.put(contributor.getLogin(), contributor.getContributions());
+    private static Map<String, Integer> contributionsByLogin(List<LeaderboardEntry> leaderboard) {
+        Map<String, Integer> contributionsMap = new LinkedHashMap<>();
+        for (LeaderboardEntry entry : leaderboard) {
+            contributionsMap.put(entry.login(), Math.toIntExact(entry.contributions()));
         }
-
         return contributionsMap;
     }
 
     @Transactional(readOnly = true)
     public List<Map<String, Object>> fetchTopApacheRepos() {
-        List<RepoEntity> repos = repoRepository.findAll();
+        // Summary projection: no repository entity and none of its contributors are loaded
+        List<RepoSummary> repos = repoRepository.findRepoSummaries();
         List<Map<String, Object>> result = new ArrayList<>();
 
-        for (RepoEntity repo : repos) {
+        for (RepoSummary repo : repos) {
             Map<String, Object> repoInfo = new HashMap<>();
-            repoInfo.put("name", repo.getFullName());
-            repoInfo.put("stars", repo.getStars());
-            repoInfo.put("description", repo.getDescription());
+            repoInfo.put("name", repo.fullName());
+            repoInfo.put("stars", repo.stars());
+            repoInfo.put("description", repo.description());
             result.add(repoInfo);
         }
 
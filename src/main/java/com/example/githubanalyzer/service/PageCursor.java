@@ -0,0 +1,56 @@
+package com.example.githubanalyzer.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a keyset page: the sort key and id of that row.
+ * The next page starts at the rows ordered strictly after it, so pages stay stable while rows
+ * are inserted, and seeking costs the same at any depth.
+ * @param key Sort key of the last row, e.g. its stars
+ * @param id Id of the last row, breaking ties between equal keys
+ */
+public record PageCursor(long key, long id) {
+
+    /**
+     * Position before the first row of a descending page
+     */
+    public static final PageCursor FIRST = new PageCursor(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    /**
+     * Encode the cursor as an opaque URL-safe token
+     * @return Token accepted by {@link #decode(String)}
+     */
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((key + ":" + id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Decode a token returned by {@link #encode()}
+     * @param token Cursor token, or null for the first page
+     * @return Decoded cursor, {@link #FIRST} for a null token
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     */
+    public static PageCursor decode(String token) {
+        if (token == null) {
+            return FIRST;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            int separator = decoded.indexOf(':');
+            return new PageCursor(Long.parseLong(decoded.substring(0, separator)),
+                                  Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    /**
+     * Sort key clamped to the range of an int column
+     * @return Key as an int
+     */
+    public int intKey() {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, key));
+    }
+}
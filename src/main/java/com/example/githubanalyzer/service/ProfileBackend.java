@@ -0,0 +1,15 @@
+package com.example.githubanalyzer.service;
+
+/**
+ * How contributor profiles are fetched from GitHub
+ */
+public enum ProfileBackend {
+    /**
+     * One REST call to /users/{login} per contributor, started as soon as its repository's contributors are known
+     */
+    REST,
+    /**
+     * Aliased GraphQL queries covering up to 100 logins each, sent once the contributors of every repository are known
+     */
+    GRAPHQL
+}
@@ -0,0 +1,86 @@
+package com.example.githubanalyzer.service;
+
+import com.example.githubanalyzer.dto.LeaderboardEntry;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable copy of the small read views, as of one committed crawl: the legacy top repositories
+ * and contributors and the contributor leaderboard. Their size is bounded by the stored repositories
+ * and logins, not by the contributor rows, which the paged listings read from the database.
+ */
+public final class ReadSnapshot {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final long version;
+    private final String eTag;
+    private final List<Map<String, Object>> topRepos;
+    private final Map<String, Integer> topContributors;
+    private final List<LeaderboardEntry> leaderboard;
+
+    /**
+     * @param version Version of the stored data this snapshot was loaded for
+     * @param eTag Entity tag of the responses served from this snapshot
+     * @param topRepos Legacy repository listing
+     * @param topContributors Legacy contributor listing
+     * @param leaderboard Contributor leaderboard, largest summed contributions first
+     */
+    public ReadSnapshot(long version, String eTag, List<Map<String, Object>> topRepos,
+                        Map<String, Integer> topContributors, List<LeaderboardEntry> leaderboard) {
+        this.version = version;
+        this.eTag = eTag;
+        this.topRepos = topRepos.stream().map(Collections::unmodifiableMap).toList();
+        this.topContributors = Collections.unmodifiableMap(topContributors);
+        this.leaderboard = List.copyOf(leaderboard);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public List<Map<String, Object>> getTopRepos() {
+        return topRepos;
+    }
+
+    public Map<String, Integer> getTopContributors() {
+        return topContributors;
+    }
+
+    /**
+     * Get a slice of the contributor leaderboard. Ranks were computed when the snapshot was loaded,
+     * so the cost depends only on the slice size.
+     * @param limit Number of entries, defaults to {@value #DEFAULT_PAGE_SIZE}
+     * @param offset Number of entries skipped, defaults to 0
+     * @return Leaderboard entries from the given position
+     * @throws IllegalArgumentException if the limit or offset is out of range
+     */
+    public List<LeaderboardEntry> leaderboard(Integer limit, Integer offset) {
+        int size = pageSize(limit);
+        int from = offset != null ? offset : 0;
+        if (from < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        if (from >= leaderboard.size()) {
+            return List.of();
+        }
+        return leaderboard.subList(from, Math.min(from + size, leaderboard.size()));
+    }
+
+    private static int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.githubanalyzer.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the {@link ReadSnapshot} the small read views are served from. Stored data only changes when
+ * a crawl commits, so each commit that changed rows bumps the version and schedules a rebuild on the
+ * snapshot executor. Reads keep getting the previous snapshot, without a lock or a query, until the
+ * new one is swapped in.
+ * The entity tag combines the startup time with the version, so tags from before a restart never match.
+ */
+@Component
+public class ReadSnapshotCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadSnapshotCache.class);
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong(1);
+    private final AtomicReference<ReadSnapshot> current = new AtomicReference<>();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+
+    @Autowired
+    private GitHubService githubService;
+
+    @Autowired
+    @Qualifier("readSnapshotExecutor")
+    private Executor rebuildExecutor;
+
+    /**
+     * Get the latest loaded snapshot. Only the very first read waits for a load; a snapshot older than
+     * the stored data is still returned while its replacement is rebuilt in the background.
+     * @return Current read snapshot
+     */
+    public ReadSnapshot current() {
+        ReadSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            synchronized (this) {
+                snapshot = current.get();
+                if (snapshot == null) {
+                    return load();
+                }
+            }
+        }
+        if (snapshot.getVersion() != version.get()) {
+            scheduleRebuild();
+        }
+        hits.incrementAndGet();
+        return snapshot;
+    }
+
+    /**
+     * Get the entity tag of the current version of the stored data. The paged listings read the database
+     * directly and are tagged with it, so they change tag in step with the snapshot views.
+     * @return Quoted entity tag
+     */
+    public String currentETag() {
+        return eTag(version.get());
+    }
+
+    /**
+     * Bump the version and rebuild the snapshot once a sync that changed rows has committed
+     * @param report Row counts of the committed sync
+     */
+    @TransactionalEventListener
+    public void onSyncCommitted(SyncReport report) {
+        if (report.hasChanges()) {
+            version.incrementAndGet();
+            scheduleRebuild();
+        }
+    }
+
+    private void scheduleRebuild() {
+        if (!rebuildScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuildExecutor.execute(this::rebuild);
+        } catch (RejectedExecutionException e) {
+            rebuildScheduled.set(false);
+            logger.warn("Read snapshot rebuild of version {} rejected", version.get());
+        }
+    }
+
+    private void rebuild() {
+        // Cleared first, so a commit during the load schedules another rebuild
+        rebuildScheduled.set(false);
+        ReadSnapshot snapshot = current.get();
+        if (snapshot != null && snapshot.getVersion() == version.get()) {
+            return;
+        }
+        try {
+            load();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to rebuild the read snapshot, still serving the previous one", e);
+        }
+    }
+
+    private ReadSnapshot load() {
+        long loading = version.get();
+        ReadSnapshot loaded = githubService.loadReadSnapshot(loading, eTag(loading));
+        loads.incrementAndGet();
+        logger.debug("Loaded read snapshot version {}", loading);
+        // A slower load of an older version never replaces a newer snapshot
+        return current.accumulateAndGet(loaded,
+            (previous, next) -> previous == null || next.getVersion() >= previous.getVersion() ? next : previous);
+    }
+
+    private String eTag(long version) {
+        return "\"" + epoch + "-" + version + "\"";
+    }
+
+    /**
+     * Export reads served from the current snapshot as cache hits and snapshot loads as misses
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+            .tags("cache", "read-snapshot", "result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", loads, AtomicLong::get)
+            .tags("cache", "read-snapshot", "result", "miss").register(registry);
+        Gauge.builder("read.snapshot.version", version, AtomicLong::get)
+            .description("Version of the stored data, bumped by every sync that changed rows").register(registry);
+    }
+
+    /**
+     * Get the current version, the version being served and how often reads were served from memory
+     * @return Versions, hit and load counts
+     */
+    public Map<String, Object> getStats() {
+        ReadSnapshot snapshot = current.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("version", version.get());
+        stats.put("servedVersion", snapshot != null ? snapshot.getVersion() : null);
+        stats.put("hits", hits.get());
+        stats.put("loads", loads.get());
+        return stats;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.githubanalyzer.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Queues a delta refresh on the configured schedule. The refresh runs as a regular crawl job, so a tick
+ * that arrives while a refresh is running joins it, and one that arrives during a full crawl of an
+ * organization skips that organization instead of starting another crawl of it.
+ */
+@Component
+public class RefreshScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshScheduler.class);
+
+    @Autowired
+    private CrawlJobService crawlJobService;
+
+    /**
+     * Spring cron expression from {@code github.refresh.cron}, "-" disables the refresh
+     */
+    @Scheduled(cron = "${github.refresh.cron:-}")
+    public void refreshChangedRepos() {
+        for (CrawlJob job : crawlJobService.submitDeltaRefresh()) {
+            logger.info("Scheduled delta refresh of {} running as job {}", job.getOrg(), job.getId());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.githubanalyzer.service;
+
+/**
+ * Row counts of one sync run. Unchanged rows matched their stored content hash and were not written.
+ * Deleted contributors were stored for a synced repository but are no longer among its top contributors.
+ */
+public record SyncReport(
+    int reposInserted,
+    int reposUpdated,
+    int reposUnchanged,
+    int contributorsInserted,
+    int contributorsUpdated,
+    int contributorsUnchanged,
+    int contributorsDeleted) {
+
+    /**
+     * Whether the sync wrote any row
+     * @return True if a row was inserted, updated or deleted
+     */
+    public boolean hasChanges() {
+        return reposInserted + reposUpdated + contributorsInserted + contributorsUpdated + contributorsDeleted > 0;
+    }
+}
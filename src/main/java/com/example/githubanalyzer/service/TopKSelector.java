@@ -0,0 +1,194 @@
+package com.example.githubanalyzer.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+/**
+ * Selects the K highest scoring items of a stream in O(N log K) time and O(K) memory.
+ * Scores are extracted once per item into a primitive array backing a bounded min-heap,
+ * whose root is the weakest item kept so far. Among equal scores the item offered first ranks
+ * higher, which matches a stable descending sort followed by a limit.
+ * Not thread-safe; parallel streams give each thread a selector of its own and merge them.
+ * @param <T> Item type
+ */
+public class TopKSelector<T> {
+
+    private final int k;
+    private final ToLongFunction<? super T> scoreFunction;
+
+    private final Object[] items;
+    private final long[] scores;
+    private final long[] sequence;
+    private int size;
+    private long offered;
+
+    /**
+     * @param k Number of items to keep
+     * @param scoreFunction Score of an item, higher is better
+     */
+    public TopKSelector(int k, ToLongFunction<? super T> scoreFunction) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        this.k = k;
+        this.scoreFunction = scoreFunction;
+        this.items = new Object[k];
+        this.scores = new long[k];
+        this.sequence = new long[k];
+    }
+
+    /**
+     * Collector keeping the top K elements of a stream, best first
+     * @param k Number of items to keep
+     * @param scoreFunction Score of an item, higher is better
+     * @return Collector producing the selected items
+     */
+    public static <T> Collector<T, ?, List<T>> collector(int k, ToLongFunction<? super T> scoreFunction) {
+        return Collector.of(
+            () -> new TopKSelector<T>(k, scoreFunction),
+            TopKSelector::offer,
+            TopKSelector::merge,
+            TopKSelector::result);
+    }
+
+    /**
+     * Offer an item to the selection
+     * @param item Candidate item
+     */
+    public void offer(T item) {
+        long score = scoreFunction.applyAsLong(item);
+        long seq = offered++;
+        if (k == 0) {
+            return;
+        }
+
+        if (size < k) {
+            items[size] = item;
+            scores[size] = score;
+            sequence[size] = seq;
+            siftUp(size++);
+        } else if (score > scores[0]) {
+            // Strictly better than the weakest kept item; an equal score offered later ranks lower
+            items[0] = item;
+            scores[0] = score;
+            sequence[0] = seq;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Offer all items of an iterable
+     * @param candidates Candidate items
+     */
+    public void offerAll(Iterable<? extends T> candidates) {
+        for (T item : candidates) {
+            offer(item);
+        }
+    }
+
+    /**
+     * Merge the selection of another selector into this one, as if its items had been offered after
+     * the items of this selector. Used by the collector to combine the selections of a parallel stream.
+     * @param other Selector over the items that follow this selector's items in encounter order
+     * @return This selector
+     */
+    public TopKSelector<T> merge(TopKSelector<? extends T> other) {
+        // Best first keeps the relative order of equal scores, so their sequence stays in encounter order
+        List<? extends T> retained = other.result();
+        offerAll(retained);
+        offered += other.offered - retained.size();
+        return this;
+    }
+
+    /**
+     * @return Number of items offered so far
+     */
+    public long getOfferedCount() {
+        return offered;
+    }
+
+    /**
+     * Get the selected items, best first. The selector can keep accepting items afterwards.
+     * @return Up to K items in descending score order
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> result() {
+        int n = size;
+        Object[] heapItems = items.clone();
+        long[] heapScores = scores.clone();
+        long[] heapSequence = sequence.clone();
+
+        // Pop the weakest item repeatedly and fill the result from the back
+        Object[] sorted = new Object[n];
+        for (int last = n - 1; last >= 0; last--) {
+            sorted[last] = heapItems[0];
+            heapItems[0] = heapItems[last];
+            heapScores[0] = heapScores[last];
+            heapSequence[0] = heapSequence[last];
+            siftDown(heapItems, heapScores, heapSequence, 0, last);
+        }
+
+        List<T> result = new ArrayList<>(n);
+        for (Object item : sorted) {
+            result.add((T) item);
+        }
+        return result;
+    }
+
+    /**
+     * True when item a is weaker than item b: a lower score, or an equal score offered later
+     */
+    private static boolean weaker(long[] scores, long[] sequence, int a, int b) {
+        return scores[a] < scores[b] || (scores[a] == scores[b] && sequence[a] > sequence[b]);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!weaker(scores, sequence, index, parent)) {
+                break;
+            }
+            swap(items, scores, sequence, index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        siftDown(items, scores, sequence, index, size);
+    }
+
+    private static void siftDown(Object[] items, long[] scores, long[] sequence, int index, int size) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int weakest = left;
+            int right = left + 1;
+            if (right < size && weaker(scores, sequence, right, left)) {
+                weakest = right;
+            }
+            if (!weaker(scores, sequence, weakest, index)) {
+                return;
+            }
+            swap(items, scores, sequence, index, weakest);
+            index = weakest;
+        }
+    }
+
+    private static void swap(Object[] items, long[] scores, long[] sequence, int i, int j) {
+        Object item = items[i];
+        items[i] = items[j];
+        items[j] = item;
+
+        long score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+
+        long seq = sequence[i];
+        sequence[i] = sequence[j];
+        sequence[j] = seq;
+    }
+}
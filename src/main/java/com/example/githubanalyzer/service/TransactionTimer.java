@@ -0,0 +1,37 @@
+package com.example.githubanalyzer.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records how long write transactions take, from begin through commit
+ */
+public class TransactionTimer {
+
+    private final AtomicLong transactions = new AtomicLong();
+    private final AtomicLong lastMillis = new AtomicLong();
+    private final AtomicLong maxMillis = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+
+    /**
+     * @param elapsedNanos Duration of one transaction
+     * @return Duration in milliseconds
+     */
+    public long record(long elapsedNanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        transactions.incrementAndGet();
+        lastMillis.set(millis);
+        maxMillis.accumulateAndGet(millis, Math::max);
+        totalMillis.addAndGet(millis);
+        return millis;
+    }
+
+    public Stats getStats() {
+        long count = transactions.get();
+        long total = totalMillis.get();
+        return new Stats(count, lastMillis.get(), maxMillis.get(), total, count > 0 ? (double) total / count : 0);
+    }
+
+    public record Stats(long transactions, long lastMillis, long maxMillis, long totalMillis, double averageMillis) {
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.githubanalyzer.service;
+
+import com.example.githubanalyzer.client.GitHubUser;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory cache of GitHub user profiles shared by all repositories of a crawl.
+ * Entries expire after a TTL, the least recently used entry is evicted once the cache is full,
+ * and concurrent lookups of the same login are coalesced into a single request.
+ */
+@Component
+public class UserProfileCache implements MeterBinder {
+
+    private final long ttlNanos;
+    private final int maxSize;
+    private final LongSupplier nanoClock;
+
+    private final Map<String, Entry> entries;
+    private final ConcurrentHashMap<String, CompletableFuture<GitHubUser>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    @Autowired
+    public UserProfileCache(@Value("${github.users.cache-ttl-minutes:60}") long ttlMinutes,
+                            @Value("${github.users.cache-max-size:10000}") int maxSize) {
+        this(Duration.ofMinutes(ttlMinutes), maxSize, System::nanoTime);
+    }
+
+    UserProfileCache(Duration ttl, int maxSize, LongSupplier nanoClock) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > UserProfileCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get a user profile from the cache, loading it when absent or expired.
+     * A lookup for a login that is already being loaded joins the pending request.
+     * @param login GitHub username
+     * @param loader Asynchronous loader for a missing profile
+     * @return User profile
+     */
+    public CompletableFuture<GitHubUser> get(String login, Function<String, CompletableFuture<GitHubUser>> loader) {
+        GitHubUser cached = getIfPresent(login);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<GitHubUser> promise = new CompletableFuture<>();
+        CompletableFuture<GitHubUser> pending = inFlight.putIfAbsent(login, promise);
+        if (pending != null) {
+            coalesced.incrementAndGet();
+            return pending;
+        }
+
+        // A load may have finished between the lookup above and registering this one
+        cached = getIfPresent(login);
+        if (cached != null) {
+            inFlight.remove(login, promise);
+            hits.incrementAndGet();
+            promise.complete(cached);
+            return promise;
+        }
+
+        misses.incrementAndGet();
+        CompletableFuture<GitHubUser> load;
+        try {
+            load = loader.apply(login);
+        } catch (RuntimeException e) {
+            inFlight.remove(login, promise);
+            promise.completeExceptionally(e);
+            return promise;
+        }
+        load.whenComplete((profile, error) -> {
+            if (error == null) {
+                put(login, profile);
+            }
+            inFlight.remove(login, promise);
+            if (error == null) {
+                promise.complete(profile);
+            } else {
+                promise.completeExceptionally(error);
+            }
+        });
+        return promise;
+    }
+
+    /**
+     * Get many user profiles at once. Cached profiles and logins already being loaded are served as in
+     * {@link #get}; all remaining logins are handed to the batch loader in a single call.
+     * @param logins GitHub usernames
+     * @param batchLoader Asynchronous loader returning a profile for every login it is given
+     * @return Profile of each distinct login, in the given order
+     */
+    public Map<String, CompletableFuture<GitHubUser>> getAll(Collection<String> logins,
+            Function<List<String>, CompletableFuture<Map<String, GitHubUser>>> batchLoader) {
+        Map<String, CompletableFuture<GitHubUser>> profiles = new LinkedHashMap<>();
+        Map<String, CompletableFuture<GitHubUser>> loading = new LinkedHashMap<>();
+
+        for (String login : logins) {
+            if (profiles.containsKey(login)) {
+                continue;
+            }
+            GitHubUser cached = getIfPresent(login);
+            if (cached != null) {
+                hits.incrementAndGet();
+                profiles.put(login, CompletableFuture.completedFuture(cached));
+                continue;
+            }
+
+            CompletableFuture<GitHubUser> promise = new CompletableFuture<>();
+            CompletableFuture<GitHubUser> pending = inFlight.putIfAbsent(login, promise);
+            if (pending != null) {
+                coalesced.incrementAndGet();
+                profiles.put(login, pending);
+                continue;
+            }
+
+            // A load may have finished between the lookup above and registering this one
+            cached = getIfPresent(login);
+            if (cached != null) {
+                inFlight.remove(login, promise);
+                hits.incrementAndGet();
+                promise.complete(cached);
+            } else {
+                misses.incrementAndGet();
+                loading.put(login, promise);
+            }
+            profiles.put(login, promise);
+        }
+
+        if (loading.isEmpty()) {
+            return profiles;
+        }
+        CompletableFuture<Map<String, GitHubUser>> load;
+        try {
+            load = batchLoader.apply(List.copyOf(loading.keySet()));
+        } catch (RuntimeException e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+        load.whenComplete((loaded, error) -> loading.forEach((login, promise) -> {
+            GitHubUser profile = error == null ? loaded.get(login) : null;
+            if (profile != null) {
+                put(login, profile);
+            }
+            inFlight.remove(login, promise);
+            if (profile != null) {
+                promise.complete(profile);
+            } else {
+                promise.completeExceptionally(error != null ? error
+                    : new IllegalStateException("No profile loaded for " + login));
+            }
+        }));
+        return profiles;
+    }
+
+    private GitHubUser getIfPresent(String login) {
+        synchronized (entries) {
+            Entry entry = entries.get(login);
+            if (entry == null) {
+                return null;
+            }
+            if (nanoClock.getAsLong() - entry.loadedAtNanos() >= ttlNanos) {
+                entries.remove(login);
+                expirations.incrementAndGet();
+                return null;
+            }
+            return entry.profile();
+        }
+    }
+
+    private void put(String login, GitHubUser profile) {
+        synchronized (entries) {
+            entries.put(login, new Entry(profile, nanoClock.getAsLong()));
+        }
+    }
+
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long coalescedCount = coalesced.get();
+        long requests = hitCount + missCount + coalescedCount;
+        double hitRate = requests == 0 ? 0.0 : (double) (hitCount + coalescedCount) / requests;
+        return new Stats(hitCount, missCount, coalescedCount, evictions.get(), expirations.get(), size, maxSize, hitRate);
+    }
+
+    /**
+     * Export the counters as the standard cache metrics. Coalesced lookups get a result tag of their own.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+            .tags("cache", "user-profiles", "result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+            .tags("cache", "user-profiles", "result", "miss").register(registry);
+        FunctionCounter.builder("cache.gets", coalesced, AtomicLong::get)
+            .tags("cache", "user-profiles", "result", "coalesced").register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, AtomicLong::get)
+            .tag("cache", "user-profiles").register(registry);
+        Gauge.builder("cache.size", this, cache -> cache.getStats().size())
+            .tag("cache", "user-profiles").register(registry);
+    }
+
+    private record Entry(GitHubUser profile, long loadedAtNanos) {
+    }
+
+    /**
+     * Cache counters. Coalesced lookups joined a request already in flight and count towards the hit rate.
+     */
+    public record Stats(long hits, long misses, long coalesced, long evictions, long expirations,
+                        int size, int maxSize, double hitRate) {
+    }
+}
@@ -0,0 +1,40 @@
+-- Tables and sequences of RepoEntity and ContributorEntity.
+-- Every statement is idempotent, so a database created by Hibernate's ddl-auto=update before
+-- migrations were introduced is brought to the same schema as a new one.
+
+CREATE SEQUENCE IF NOT EXISTS repo_entity_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS contributor_entity_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS repo_entity (
+    id BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+ALTER TABLE repo_entity ADD COLUMN IF NOT EXISTS full_name VARCHAR(255);
+ALTER TABLE repo_entity ADD COLUMN IF NOT EXISTS org VARCHAR(255);
+ALTER TABLE repo_entity ADD COLUMN IF NOT EXISTS description VARCHAR(255);
+ALTER TABLE repo_entity ADD COLUMN IF NOT EXISTS stars INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE repo_entity ADD COLUMN IF NOT EXISTS forks INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE repo_entity ADD COLUMN IF NOT EXISTS url VARCHAR(255);
+ALTER TABLE repo_entity ADD COLUMN IF NOT EXISTS watchers_count INTEGER;
+ALTER TABLE repo_entity ADD COLUMN IF NOT EXISTS language VARCHAR(255);
+ALTER TABLE repo_entity ADD COLUMN IF NOT EXISTS open_issues_count INTEGER;
+ALTER TABLE repo_entity ADD COLUMN IF NOT EXISTS license VARCHAR(255);
+ALTER TABLE repo_entity ADD COLUMN IF NOT EXISTS open_issues VARCHAR(1000);
+ALTER TABLE repo_entity ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+ALTER TABLE repo_entity ADD COLUMN IF NOT EXISTS pushed_at TIMESTAMP(6) WITH TIME ZONE;
+ALTER TABLE repo_entity ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP(6) WITH TIME ZONE;
+
+CREATE TABLE IF NOT EXISTS contributor_entity (
+    id BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+ALTER TABLE contributor_entity ADD COLUMN IF NOT EXISTS repo_id BIGINT;
+ALTER TABLE contributor_entity ADD COLUMN IF NOT EXISTS login VARCHAR(255);
+ALTER TABLE contributor_entity ADD COLUMN IF NOT EXISTS contributions INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE contributor_entity ADD COLUMN IF NOT EXISTS location VARCHAR(255);
+ALTER TABLE contributor_entity ADD COLUMN IF NOT EXISTS company VARCHAR(255);
+ALTER TABLE contributor_entity ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+
+-- Databases created by Hibernate also have its generated FKijydl26jvylxgh6fj3vrl47i6; V2 drops it
+ALTER TABLE contributor_entity ADD CONSTRAINT IF NOT EXISTS fk_contributor_repo
+    FOREIGN KEY (repo_id) REFERENCES repo_entity (id);
@@ -0,0 +1,18 @@
+-- Remove the duplicate rows written while every sync appended new rows, then add the unique
+-- constraints the duplicated data did not allow. The most recently written row wins.
+
+DELETE FROM contributor_entity WHERE repo_id IN (SELECT r.id FROM repo_entity r WHERE EXISTS (
+    SELECT 1 FROM repo_entity n WHERE n.full_name = r.full_name AND n.id > r.id));
+
+DELETE FROM repo_entity r WHERE EXISTS (
+    SELECT 1 FROM repo_entity n WHERE n.full_name = r.full_name AND n.id > r.id);
+
+DELETE FROM contributor_entity c WHERE EXISTS (
+    SELECT 1 FROM contributor_entity n WHERE n.repo_id = c.repo_id AND n.login = c.login AND n.id > c.id);
+
+-- The foreign key Hibernate generated duplicates fk_contributor_repo of V1
+ALTER TABLE contributor_entity DROP CONSTRAINT IF EXISTS FKijydl26jvylxgh6fj3vrl47i6;
+
+-- Also serve the lookups by full name, and by repository and login
+ALTER TABLE repo_entity ADD CONSTRAINT IF NOT EXISTS uk_repo_full_name UNIQUE (full_name);
+ALTER TABLE contributor_entity ADD CONSTRAINT IF NOT EXISTS uk_contributor_repo_login UNIQUE (repo_id, login);
@@ -0,0 +1,14 @@
+-- Move the id sequences past rows written while ids still came from IDENTITY columns.
+-- Hibernate's pooled optimizer treats a sequence value as the upper end of a block of 50 ids
+-- (the allocationSize of the entities' generators), so the sequence must be at least the highest
+-- stored id plus 50. Sequences already past that point are left where they are.
+
+ALTER SEQUENCE repo_entity_seq RESTART WITH (
+    SELECT GREATEST(COALESCE(MAX(id), 0) + 50,
+                    (SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'REPO_ENTITY_SEQ'))
+    FROM repo_entity);
+
+ALTER SEQUENCE contributor_entity_seq RESTART WITH (
+    SELECT GREATEST(COALESCE(MAX(id), 0) + 50,
+                    (SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'CONTRIBUTOR_ENTITY_SEQ'))
+    FROM contributor_entity);
@@ -0,0 +1,11 @@
+-- Indexes of the hot read paths. Lookups by full name and by (repo_id, login) use the unique
+-- constraints of V2; the foreign key of V1 indexes repo_id.
+
+-- Repository listing, most starred first
+CREATE INDEX IF NOT EXISTS idx_repo_stars_id ON repo_entity (stars DESC, id DESC);
+
+-- Contributor listing, most contributions first
+CREATE INDEX IF NOT EXISTS idx_contributor_contributions_id ON contributor_entity (contributions DESC, id DESC);
+
+-- Leaderboard: contributions summed per login
+CREATE INDEX IF NOT EXISTS idx_contributor_login_contributions ON contributor_entity (login, contributions);
@@ -1,20 +1,50 @@
 package com.example.githubanalyzer;
 
+import com.example.githubanalyzer.client.ConditionalRequestCache;
+import com.example.githubanalyzer.client.RateLimitScheduler;
+import com.example.githubanalyzer.client.TokenPool;
 import com.example.githubanalyzer.controller.GitHubController;
-import com.example.githubanalyzer.entity.ContributorEntity;
-import com.example.githubanalyzer.entity.RepoEntity;
+import com.example.githubanalyzer.dto.ContributorFilter;
+import com.example.githubanalyzer.dto.KeysetPage;
+import com.example.githubanalyzer.dto.LeaderboardEntry;
+import com.example.githubanalyzer.dto.RepoFilter;
+import com.example.githubanalyzer.dto.RepoSummary;
+import com.example.githubanalyzer.dto.RepoWithContributorDTO;
+import com.example.githubanalyzer.service.CrawlConflictException;
+import com.example.githubanalyzer.service.CrawlJob;
+import com.example.githubanalyzer.service.CrawlJobService;
+import com.example.githubanalyzer.service.CrawlKind;
+import com.example.githubanalyzer.service.CrawlRequest;
+import com.example.githubanalyzer.service.CrawlStage;
 import com.example.githubanalyzer.service.GitHubService;
+import com.example.githubanalyzer.service.ReadSnapshot;
+import com.example.githubanalyzer.service.ReadSnapshotCache;
+import com.example.githubanalyzer.service.SyncReport;
+import com.example.githubanalyzer.service.TransactionTimer;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.*;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -28,59 +58,164 @@ public class GitHubControllerTest {
     @MockBean
     private GitHubService gitHubService;
 
+    @MockBean
+    private CrawlJobService crawlJobService;
+
+    @MockBean
+    private ReadSnapshotCache readSnapshotCache;
+
+    private void serveSnapshot(List<Map<String, Object>> topRepos, Map<String, Integer> topContributors) {
+        when(readSnapshotCache.current()).thenReturn(new ReadSnapshot(1, "\"v1\"", topRepos, topContributors, List.of()));
+        when(readSnapshotCache.currentETag()).thenReturn("\"v1\"");
+    }
+
     @Test
     public void testFetchAndSaveEndpoint() throws Exception {
-        // Prepare mock data
-        List<RepoEntity> mockRepos = new ArrayList<>();
+        // Prepare mock job
+        CrawlJob job = mock(CrawlJob.class);
+        when(job.getId()).thenReturn("job-1");
+        CrawlRequest request = new CrawlRequest("apache", 100, 5, 10);
+        when(job.getStatus()).thenReturn(new CrawlJob.Status("job-1", "apache", CrawlKind.FULL, request, CrawlStage.QUEUED,
+                0, 0, 0, 0, Instant.parse("2024-01-01T00:00:00Z"), null, null, 0, Map.of(), null, null, 0, null));
 
-        RepoEntity repo1 = new RepoEntity();
-        repo1.setId(1L);
-        repo1.setFullName("apache/commons-lang");
-        repo1.setStars(4500);
-        repo1.setLanguage("Java");
+        // Configure mock service
+        when(gitHubService.getOrgs()).thenReturn(List.of("apache", "eclipse"));
+        when(gitHubService.crawlRequest("apache", null, null, null)).thenReturn(request);
+        when(crawlJobService.submitFetchAndSave(request)).thenReturn(job);
 
-        RepoEntity repo2 = new RepoEntity();
-        repo2.setId(2L);
-        repo2.setFullName("apache/commons-io");
-        repo2.setStars(3500);
-        repo2.setLanguage("Java");
+        // Test the endpoint
+        mockMvc.perform(post("/api/fetch-and-save"))
+               .andExpect(status().isAccepted())
+               .andExpect(header().string("Location", "/api/jobs/job-1"))
+               .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+               .andExpect(jsonPath("$.id").value("job-1"))
+               .andExpect(jsonPath("$.org").value("apache"))
+               .andExpect(jsonPath("$.stage").value("QUEUED"));
+    }
 
-        mockRepos.add(repo1);
-        mockRepos.add(repo2);
+    @Test
+    public void testFetchAndSaveOrgsEndpoint() throws Exception {
+        // Prepare mock jobs
+        CrawlRequest apache = new CrawlRequest("apache", 100, 3, 20);
+        CrawlRequest eclipse = new CrawlRequest("eclipse", 100, 3, 20);
+        CrawlJob apacheJob = mock(CrawlJob.class);
+        when(apacheJob.getStatus()).thenReturn(new CrawlJob.Status("job-1", "apache", CrawlKind.FULL, apache, CrawlStage.QUEUED,
+                0, 0, 0, 0, Instant.parse("2024-01-01T00:00:00Z"), null, null, 0, Map.of(), null, null, 0, null));
+        CrawlJob eclipseJob = mock(CrawlJob.class);
+        when(eclipseJob.getStatus()).thenReturn(new CrawlJob.Status("job-2", "eclipse", CrawlKind.FULL, eclipse, CrawlStage.QUEUED,
+                0, 0, 0, 0, Instant.parse("2024-01-01T00:00:00Z"), null, null, 0, Map.of(), null, null, 0, null));
 
         // Configure mock service
-        when(gitHubService.fetchAndSaveTopApacheRepos()).thenReturn(mockRepos);
+        when(gitHubService.crawlRequest("apache", null, 3, 20)).thenReturn(apache);
+        when(gitHubService.crawlRequest("eclipse", null, 3, 20)).thenReturn(eclipse);
+        when(crawlJobService.submitFetchAndSave(List.of(apache, eclipse))).thenReturn(List.of(apacheJob, eclipseJob));
 
         // Test the endpoint
-        mockMvc.perform(post("/api/fetch-and-save"))
+        mockMvc.perform(post("/api/fetch-and-save/orgs")
+                        .param("org", "apache", "eclipse")
+                        .param("topRepos", "3")
+                        .param("topContributors", "20"))
+               .andExpect(status().isAccepted())
+               .andExpect(jsonPath("$[0].id").value("job-1"))
+               .andExpect(jsonPath("$[1].org").value("eclipse"));
+    }
+
+    @Test
+    public void testFetchAndSaveRejectsInvalidParameters() throws Exception {
+        // Configure mock service
+        when(gitHubService.crawlRequest("apache", null, 0, null))
+                .thenThrow(new IllegalArgumentException("topRepos must be at least 1"));
+
+        // Test the endpoint
+        mockMvc.perform(post("/api/fetch-and-save").param("org", "apache").param("topRepos", "0"))
+               .andExpect(status().isBadRequest())
+               .andExpect(content().string("topRepos must be at least 1"));
+    }
+
+    @Test
+    public void testFetchAndSaveConflictsWithDifferentCrawl() throws Exception {
+        // Prepare the running job
+        CrawlRequest running = new CrawlRequest("apache", 100, 5, 10);
+        CrawlJob job = mock(CrawlJob.class);
+        when(job.getId()).thenReturn("job-1");
+        when(job.getOrg()).thenReturn("apache");
+        when(job.getKind()).thenReturn(CrawlKind.FULL);
+        when(job.getStatus()).thenReturn(new CrawlJob.Status("job-1", "apache", CrawlKind.FULL, running,
+                CrawlStage.FETCHING_REPOSITORIES, 0, 0, 0, 0, Instant.parse("2024-01-01T00:00:00Z"), null, null, 0,
+                Map.of(), null, null, 0, null));
+
+        // Configure mock service
+        CrawlRequest request = new CrawlRequest("apache", 100, 3, 10);
+        CrawlConflictException conflict = new CrawlConflictException(job);
+        when(gitHubService.crawlRequest("apache", null, 3, null)).thenReturn(request);
+        when(crawlJobService.submitFetchAndSave(request)).thenThrow(conflict);
+
+        // Test the endpoint
+        mockMvc.perform(post("/api/fetch-and-save").param("org", "apache").param("topRepos", "3"))
+               .andExpect(status().isConflict())
+               .andExpect(header().string("Location", "/api/jobs/job-1"))
+               .andExpect(jsonPath("$.id").value("job-1"))
+               .andExpect(jsonPath("$.kind").value("FULL"))
+               .andExpect(jsonPath("$.request.topRepos").value(5));
+    }
+
+    @Test
+    public void testGetJobEndpoint() throws Exception {
+        // Prepare mock job
+        CrawlJob job = mock(CrawlJob.class);
+        when(job.getStatus()).thenReturn(new CrawlJob.Status("job-1", "apache", CrawlKind.FULL,
+                new CrawlRequest("apache", 100, 2, 10), CrawlStage.COMPLETED, 100, 2, 20, 1,
+                Instant.parse("2024-01-01T00:00:00Z"), Instant.parse("2024-01-01T00:00:01Z"),
+                Instant.parse("2024-01-01T00:00:05Z"), 4000, Map.of(CrawlStage.FETCHING_REPOSITORIES, 1500L),
+                List.of("apache/commons-lang", "apache/commons-io"), new SyncReport(2, 0, 0, 20, 0, 0, 0), 12, null));
+
+        // Configure mock service
+        when(crawlJobService.getJob("job-1")).thenReturn(job);
+
+        // Test the endpoint
+        mockMvc.perform(get("/api/jobs/job-1"))
                .andExpect(status().isOk())
-               .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-               .andExpect(jsonPath("$[0].fullName").value("apache/commons-lang"))
-               .andExpect(jsonPath("$[0].stars").value(4500))
-               .andExpect(jsonPath("$[0].language").value("Java"))
-               .andExpect(jsonPath("$[1].fullName").value("apache/commons-io"))
-               .andExpect(jsonPath("$[1].stars").value(3500))
-               .andExpect(jsonPath("$[1].language").value("Java"));
+               .andExpect(jsonPath("$.stage").value("COMPLETED"))
+               .andExpect(jsonPath("$.reposScanned").value(100))
+               .andExpect(jsonPath("$.contributorsFetched").value(20))
+               .andExpect(jsonPath("$.coalescedTriggers").value(1))
+               .andExpect(jsonPath("$.durationMillis").value(4000))
+               .andExpect(jsonPath("$.stageMillis.FETCHING_REPOSITORIES").value(1500))
+               .andExpect(jsonPath("$.repositories[1]").value("apache/commons-io"))
+               .andExpect(jsonPath("$.syncReport.contributorsInserted").value(20));
+
+        mockMvc.perform(get("/api/jobs/unknown"))
+               .andExpect(status().isNotFound());
     }
 
     @Test
-    public void testGetAllReposEndpoint() throws Exception {
-        // Prepare mock data
-        List<RepoEntity> mockRepos = new ArrayList<>();
+    public void testSyncReportEndpoint() throws Exception {
+        // No sync has run yet
+        mockMvc.perform(get("/api/sync-report"))
+               .andExpect(status().isNoContent());
 
-        RepoEntity repo1 = new RepoEntity();
-        repo1.setId(1L);
-        repo1.setFullName("apache/commons-lang");
+        // Configure mock service
+        when(gitHubService.getLastSyncReport()).thenReturn(new SyncReport(1, 2, 2, 5, 3, 42, 1));
 
-        RepoEntity repo2 = new RepoEntity();
-        repo2.setId(2L);
-        repo2.setFullName("apache/commons-io");
+        // Test the endpoint
+        mockMvc.perform(get("/api/sync-report"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.reposInserted").value(1))
+               .andExpect(jsonPath("$.reposUpdated").value(2))
+               .andExpect(jsonPath("$.reposUnchanged").value(2))
+               .andExpect(jsonPath("$.contributorsUnchanged").value(42))
+               .andExpect(jsonPath("$.contributorsDeleted").value(1));
+    }
 
-        mockRepos.add(repo1);
-        mockRepos.add(repo2);
+    @Test
+    public void testGetAllReposEndpoint() throws Exception {
+        // Prepare mock data
+        List<RepoSummary> mockRepos = List.of(
+            new RepoSummary(1L, "apache/commons-lang", "apache", null, 0, 0, null, 0, null, 0, null, null),
+            new RepoSummary(2L, "apache/commons-io", "apache", null, 0, 0, null, 0, null, 0, null, null));
 
         // Configure mock service
-        when(gitHubService.getAllRepos()).thenReturn(mockRepos);
+        when(gitHubService.getRepos(any(), isNull(), isNull())).thenReturn(new KeysetPage<>(mockRepos, null));
 
         // Test the endpoint
         mockMvc.perform(get("/api/repos"))
@@ -93,27 +228,12 @@ public class GitHubControllerTest {
     @Test
     public void testGetAllContributorsEndpoint() throws Exception {
         // Prepare mock data
-        List<ContributorEntity> mockContributors = new ArrayList<>();
-
-        ContributorEntity contributor1 = new ContributorEntity();
-        contributor1.setId(1L);
-        contributor1.setLogin("user1");
-        contributor1.setLocation("Location 1");
-        contributor1.setCompany("Company 1");
-        contributor1.setContributions(100);
-
-        ContributorEntity contributor2 = new ContributorEntity();
-        contributor2.setId(2L);
-        contributor2.setLogin("user2");
-        contributor2.setLocation("Location 2");
-        contributor2.setCompany("Company 2");
-        contributor2.setContributions(50);
-
-        mockContributors.add(contributor1);
-        mockContributors.add(contributor2);
+        List<RepoWithContributorDTO> mockContributors = List.of(
+            new RepoWithContributorDTO(1L, "user1", 100, "Location 1", "Company 1", 1L, "apache/commons-lang"),
+            new RepoWithContributorDTO(2L, "user2", 50, "Location 2", "Company 2", 1L, "apache/commons-lang"));
 
         // Configure mock service
-        when(gitHubService.getAllContributors()).thenReturn(mockContributors);
+        when(gitHubService.getContributors(any(), isNull(), isNull())).thenReturn(new KeysetPage<>(mockContributors, null));
 
         // Test the endpoint
         mockMvc.perform(get("/api/contributors"))
@@ -126,21 +246,227 @@ public class GitHubControllerTest {
                .andExpect(jsonPath("$[1].login").value("user2"))
                .andExpect(jsonPath("$[1].location").value("Location 2"))
                .andExpect(jsonPath("$[1].company").value("Company 2"))
-               .andExpect(jsonPath("$[1].contributions").value(50));
+               .andExpect(jsonPath("$[1].contributions").value(50))
+               .andExpect(jsonPath("$[1].repoFullName").value("apache/commons-lang"))
+               .andExpect(jsonPath("$[1].repo").doesNotExist());
+    }
+
+    @Test
+    public void testReposEndpointBindsFiltersAndLinksTheNextPage() throws Exception {
+        List<RepoSummary> page = List.of(
+            new RepoSummary(7L, "apache/kafka", "apache", null, 900, 0, null, 0, "Java", 0, "Apache License 2.0", null));
+        when(gitHubService.getRepos(any(), eq("abc"), eq(1))).thenReturn(new KeysetPage<>(page, "next-token"));
+
+        mockMvc.perform(get("/api/repos?language=Java&minStars=500&cursor=abc&limit=1"))
+               .andExpect(status().isOk())
+               .andExpect(header().string("X-Next-Cursor", "next-token"))
+               .andExpect(header().string("Link", "<http://localhost/api/repos?language=Java&minStars=500&limit=1&cursor=next-token>; rel=\"next\""))
+               .andExpect(jsonPath("$[0].fullName").value("apache/kafka"));
+
+        verify(gitHubService).getRepos(eq(new RepoFilter(null, "Java", null, 500)), eq("abc"), eq(1));
+    }
+
+    @Test
+    public void testLastPageHasNoNextCursor() throws Exception {
+        when(gitHubService.getContributors(any(), isNull(), isNull())).thenReturn(new KeysetPage<>(List.of(), null));
+
+        mockMvc.perform(get("/api/contributors").param("company", "Apache"))
+               .andExpect(status().isOk())
+               .andExpect(header().doesNotExist("X-Next-Cursor"))
+               .andExpect(header().doesNotExist("Link"))
+               .andExpect(jsonPath("$").isEmpty());
+
+        verify(gitHubService).getContributors(eq(new ContributorFilter(null, "Apache", null)), isNull(), isNull());
+    }
+
+    @Test
+    public void testInvalidPageParametersAreRejected() throws Exception {
+        when(gitHubService.getRepos(any(), any(), eq(0))).thenThrow(new IllegalArgumentException("limit must be between 1 and 1000"));
+
+        mockMvc.perform(get("/api/repos").param("limit", "0"))
+               .andExpect(status().isBadRequest())
+               .andExpect(content().string("limit must be between 1 and 1000"));
+    }
+
+    @Test
+    public void testReadEndpointsAnswerNotModifiedForTheCurrentETag() throws Exception {
+        serveSnapshot(List.of(), Map.of("user1", 1));
+        when(gitHubService.getRepos(any(), any(), any())).thenReturn(new KeysetPage<>(List.of(), null));
+        when(gitHubService.getContributors(any(), any(), any())).thenReturn(new KeysetPage<>(List.of(), null));
+
+        for (String endpoint : List.of("/api/repos", "/api/contributors", "/api/top-repos", "/api/top-contributors", "/api/leaderboard")) {
+            mockMvc.perform(get(endpoint))
+                   .andExpect(status().isOk())
+                   .andExpect(header().string("ETag", "\"v1\""));
+            mockMvc.perform(get(endpoint).header("If-None-Match", "\"v1\""))
+                   .andExpect(status().isNotModified())
+                   .andExpect(content().string(""));
+            mockMvc.perform(get(endpoint).header("If-None-Match", "\"v0\""))
+                   .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    public void testPagedListingsAreNotQueriedForTheCurrentETag() throws Exception {
+        when(readSnapshotCache.currentETag()).thenReturn("\"v1\"");
+
+        for (String endpoint : List.of("/api/repos", "/api/contributors")) {
+            mockMvc.perform(get(endpoint).param("limit", "10").header("If-None-Match", "\"v1\""))
+                   .andExpect(status().isNotModified())
+                   .andExpect(header().string("ETag", "\"v1\""));
+        }
+
+        verify(gitHubService, never()).getRepos(any(), any(), any());
+        verify(gitHubService, never()).getContributors(any(), any(), any());
     }
 
     @Test
     public void testGetFormattedInfoEndpoint() throws Exception {
+        // Configure mock service to write the report
+        when(readSnapshotCache.currentETag()).thenReturn("\"v1\"");
+        doAnswer(invocation -> {
+            Writer writer = invocation.getArgument(0);
+            writer.write("Formatted repository and contributor information");
+            return null;
+        }).when(gitHubService).writeFormattedRepoAndContributorInfo(any(Writer.class));
+
+        // Test the endpoint
+        MvcResult result = mockMvc.perform(get("/api/formatted-info"))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+               .andExpect(status().isOk())
+               .andExpect(header().string("ETag", "\"v1\""))
+               .andExpect(content().contentType("text/plain;charset=UTF-8"))
+               .andExpect(content().string("Formatted repository and contributor information"));
+    }
+
+    @Test
+    public void testFormattedInfoIsNotStreamedForTheCurrentETag() throws Exception {
+        when(readSnapshotCache.currentETag()).thenReturn("\"v1\"");
+
+        mockMvc.perform(get("/api/formatted-info").header("If-None-Match", "\"v1\""))
+               .andExpect(status().isNotModified())
+               .andExpect(header().string("ETag", "\"v1\""))
+               .andExpect(content().string(""));
+
+        verify(gitHubService, never()).writeFormattedRepoAndContributorInfo(any(Writer.class));
+    }
+
+    @Test
+    public void testStreamFormattedInfoEndpointIsTheFormattedInfoEndpoint() throws Exception {
+        // Configure mock service to write the report
+        when(readSnapshotCache.currentETag()).thenReturn("\"v1\"");
+        doAnswer(invocation -> {
+            Writer writer = invocation.getArgument(0);
+            writer.write("Repository: apache/commons-lang (⭐ 4500)\n");
+            return null;
+        }).when(gitHubService).writeFormattedRepoAndContributorInfo(any(Writer.class));
+
+        // Test the endpoint
+        MvcResult result = mockMvc.perform(get("/api/formatted-info/stream"))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+               .andExpect(status().isOk())
+               .andExpect(header().string("ETag", "\"v1\""))
+               .andExpect(content().contentType("text/plain;charset=UTF-8"))
+               .andExpect(content().string("Repository: apache/commons-lang (⭐ 4500)\n"));
+
+        mockMvc.perform(get("/api/formatted-info/stream").header("If-None-Match", "\"v1\""))
+               .andExpect(status().isNotModified());
+        verify(gitHubService, times(1)).writeFormattedRepoAndContributorInfo(any(Writer.class));
+    }
+
+    @Test
+    public void testStreamReposEndpoint() throws Exception {
+        // Configure mock service to write two JSON lines
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1,\"fullName\":\"apache/commons-lang\"}\n".getBytes(StandardCharsets.UTF_8));
+            out.write("{\"id\":2,\"fullName\":\"apache/commons-io\"}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(gitHubService).writeReposAsNdjson(any(OutputStream.class));
+
+        // Test the endpoint
+        MvcResult result = mockMvc.perform(get("/api/repos/stream"))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+               .andExpect(status().isOk())
+               .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+               .andExpect(content().string("{\"id\":1,\"fullName\":\"apache/commons-lang\"}\n"
+                       + "{\"id\":2,\"fullName\":\"apache/commons-io\"}\n"));
+    }
+
+    @Test
+    public void testRateLimitEndpoint() throws Exception {
+        // Configure mock service
+        when(gitHubService.getRateLimitStats()).thenReturn(List.of(
+            new TokenPool.TokenStats("****abcd", false, new RateLimitScheduler.Stats(5000, 4321, 1700000000L, 250, 679, 12, 3000, 1)),
+            new TokenPool.TokenStats("****wxyz", true, new RateLimitScheduler.Stats(5000, 0, 1700000000L, 60000, 5000, 0, 0, 1))));
+
+        // Test the endpoint
+        mockMvc.perform(get("/api/rate-limit"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$[0].token").value("****abcd"))
+               .andExpect(jsonPath("$[0].parked").value(false))
+               .andExpect(jsonPath("$[0].usage.limit").value(5000))
+               .andExpect(jsonPath("$[0].usage.remaining").value(4321))
+               .andExpect(jsonPath("$[0].usage.waitMillis").value(250))
+               .andExpect(jsonPath("$[0].usage.throttledResponses").value(1))
+               .andExpect(jsonPath("$[1].parked").value(true));
+    }
+
+    @Test
+    public void testTransactionStatsEndpoint() throws Exception {
+        // Configure mock service
+        when(gitHubService.getWriteTransactionStats()).thenReturn(new TransactionTimer.Stats(4, 12, 30, 60, 15.0));
+
+        // Test the endpoint
+        mockMvc.perform(get("/api/transaction-stats"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.transactions").value(4))
+               .andExpect(jsonPath("$.lastMillis").value(12))
+               .andExpect(jsonPath("$.maxMillis").value(30))
+               .andExpect(jsonPath("$.averageMillis").value(15.0));
+    }
+
+    @Test
+    public void testCacheStatsEndpoint() throws Exception {
         // Prepare mock data
-        String mockFormattedInfo = "Formatted repository and contributor information";
+        Map<String, Object> mockStats = new LinkedHashMap<>();
+        mockStats.put("conditionalRequests", new ConditionalRequestCache.Stats(10, 3, 3));
 
         // Configure mock service
-        when(gitHubService.getFormattedRepoAndContributorInfo()).thenReturn(mockFormattedInfo);
+        when(gitHubService.getCacheStats()).thenReturn(mockStats);
 
         // Test the endpoint
-        mockMvc.perform(get("/api/formatted-info"))
+        mockMvc.perform(get("/api/cache-stats"))
                .andExpect(status().isOk())
-               .andExpect(content().string(mockFormattedInfo));
+               .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+               .andExpect(jsonPath("$.conditionalRequests.hits").value(10))
+               .andExpect(jsonPath("$.conditionalRequests.misses").value(3))
+               .andExpect(jsonPath("$.conditionalRequests.entries").value(3));
+    }
+
+    @Test
+    public void testLeaderboardEndpoint() throws Exception {
+        List<LeaderboardEntry> leaderboard = List.of(new LeaderboardEntry(1, "user1", 150, 2),
+            new LeaderboardEntry(2, "user2", 50, 1), new LeaderboardEntry(3, "user3", 10, 1));
+        when(readSnapshotCache.current()).thenReturn(new ReadSnapshot(1, "\"v1\"", List.of(), Map.of(), leaderboard));
+
+        mockMvc.perform(get("/api/leaderboard").param("limit", "2").param("offset", "1"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.length()").value(2))
+               .andExpect(jsonPath("$[0].rank").value(2))
+               .andExpect(jsonPath("$[0].login").value("user2"))
+               .andExpect(jsonPath("$[0].contributions").value(50))
+               .andExpect(jsonPath("$[0].repos").value(1))
+               .andExpect(jsonPath("$[1].login").value("user3"));
     }
 
     // Legacy endpoint tests
@@ -152,8 +478,8 @@ public class GitHubControllerTest {
         mockContributors.put("user1", 100);
         mockContributors.put("user2", 50);
 
-        // Configure mock service
-        when(gitHubService.getTopContributors()).thenReturn(mockContributors);
+        // Configure mock snapshot
+        serveSnapshot(List.of(), mockContributors);
 
         // Test the endpoint
         mockMvc.perform(get("/api/top-contributors"))
@@ -180,8 +506,8 @@ public class GitHubControllerTest {
         mockRepos.add(repo1);
         mockRepos.add(repo2);
 
-        // Configure mock service
-        when(gitHubService.fetchTopApacheRepos()).thenReturn(mockRepos);
+        // Configure mock snapshot
+        serveSnapshot(mockRepos, Map.of());
 
         // Test the endpoint
         mockMvc.perform(get("/api/top-repos"))
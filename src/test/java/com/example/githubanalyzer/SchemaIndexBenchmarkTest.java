@@ -0,0 +1,120 @@
+package com.example.githubanalyzer;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Times the read queries the application issues on a million contributors before and after the index
+ * migration, and checks that the migrated plans read the indexes. Timings are only reported, as they
+ * depend on the machine. Opt-in, as loading the data takes a while:
+ * mvn test -Dtest=SchemaIndexBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SchemaIndexBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaIndexBenchmarkTest.class);
+
+    private static final int REPOS = 1_000;
+    private static final int CONTRIBUTORS = 1_000_000;
+    private static final int RUNS = 5;
+
+    private static final Map<String, String> QUERIES = new LinkedHashMap<>();
+
+    // The SQL Hibernate generates for the Spring Data queries, with the cursor of a page deep into the listing
+    static {
+        QUERIES.put("repos page", "SELECT id, full_name, org, description, stars FROM repo_entity "
+            + "WHERE stars <= 50000 AND (stars < 50000 OR id < 500) ORDER BY stars DESC, id DESC LIMIT 101");
+        QUERIES.put("contributors page", "SELECT c.id, c.login, c.contributions, c.location, c.company, r.id, r.full_name "
+            + "FROM contributor_entity c LEFT JOIN repo_entity r ON r.id = c.repo_id "
+            + "WHERE c.contributions <= 25000 AND (c.contributions < 25000 OR c.id < 500000) "
+            + "ORDER BY c.contributions DESC, c.id DESC LIMIT 101");
+        QUERIES.put("leaderboard totals", "SELECT login, SUM(contributions), COUNT(*) FROM contributor_entity "
+            + "GROUP BY login ORDER BY SUM(contributions) DESC, login");
+        QUERIES.put("snapshot top repos", "SELECT id, full_name, description, stars FROM repo_entity ORDER BY stars DESC, id DESC");
+    }
+
+    @Test
+    void testHotQueriesReadTheIndexes() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        // H2 answers a repeated query from its last result otherwise, which would time nothing
+        dataSource.setURL("jdbc:h2:mem:schema-benchmark;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE");
+        dataSource.setUser("sa");
+
+        // Schema and constraints, without the query indexes
+        Flyway.configure().dataSource(dataSource).target("3").load().migrate();
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO repo_entity (id, full_name, org, stars, forks) "
+                + "SELECT x, 'org-' || MOD(x, 50) || '/repo-' || x, 'org-' || MOD(x, 50), MOD(x * 7919, 100000), 0 "
+                + "FROM SYSTEM_RANGE(1, " + REPOS + ")");
+            // 100k distinct logins, each contributing to ten consecutive repositories
+            statement.execute("INSERT INTO contributor_entity (id, repo_id, login, contributions) "
+                + "SELECT x, MOD(x, " + REPOS + ") + 1, 'user-' || (x / 10), MOD(x * 104729, 50000) "
+                + "FROM SYSTEM_RANGE(1, " + CONTRIBUTORS + ")");
+
+            Map<String, Long> before = timeQueries(statement);
+
+            Flyway.configure().dataSource(dataSource).load().migrate();
+            statement.execute("ANALYZE");
+
+            Map<String, Long> after = timeQueries(statement);
+
+            StringBuilder table = new StringBuilder(String.format("%n%-32s %12s %12s%n", "query", "before (us)", "after (us)"));
+            QUERIES.keySet().forEach(name ->
+                table.append(String.format("%-32s %12d %12d%n", name, before.get(name), after.get(name))));
+            logger.info("Hot query timings on {} contributors, best of {} runs:{}", CONTRIBUTORS, RUNS, table);
+
+            // Pages start the index scan at the cursor and need no sort; the grouping reads only the index
+            assertSeeksIndex(plan(statement, "repos page"), "IDX_REPO_STARS_ID: STARS <=");
+            assertSeeksIndex(plan(statement, "contributors page"), "IDX_CONTRIBUTOR_CONTRIBUTIONS_ID: CONTRIBUTIONS <=");
+            assertTrue(plan(statement, "leaderboard totals").contains("IDX_CONTRIBUTOR_LOGIN_CONTRIBUTIONS"));
+        } finally {
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+            }
+        }
+    }
+
+    private static void assertSeeksIndex(String plan, String indexCondition) {
+        assertTrue(plan.contains(indexCondition), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    private static String plan(Statement statement, String query) throws SQLException {
+        try (ResultSet rows = statement.executeQuery("EXPLAIN " + QUERIES.get(query))) {
+            rows.next();
+            return rows.getString(1);
+        }
+    }
+
+    private static Map<String, Long> timeQueries(Statement statement) throws SQLException {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        for (Map.Entry<String, String> query : QUERIES.entrySet()) {
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++) {
+                long start = System.nanoTime();
+                try (ResultSet rows = statement.executeQuery(query.getValue())) {
+                    while (rows.next()) {
+                        // Read every row, so lazily evaluated results are timed in full
+                    }
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            timings.put(query.getKey(), best / 1_000);
+        }
+        return timings;
+    }
+}
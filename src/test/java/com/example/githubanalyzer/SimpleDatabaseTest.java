@@ -1,27 +1,67 @@
 package com.example.githubanalyzer;
 
 import com.example.githubanalyzer.client.GitHubClient;
+import com.example.githubanalyzer.client.GitHubContributor;
+import com.example.githubanalyzer.client.GitHubRepo;
+import com.example.githubanalyzer.client.GitHubUser;
 import com.example.githubanalyzer.config.TestConfig;
+import com.example.githubanalyzer.dto.ContributorFilter;
+import com.example.githubanalyzer.dto.KeysetPage;
+import com.example.githubanalyzer.dto.LeaderboardEntry;
+import com.example.githubanalyzer.dto.RepoFilter;
+import com.example.githubanalyzer.dto.RepoSummary;
+import com.example.githubanalyzer.dto.RepoWithContributorDTO;
 import com.example.githubanalyzer.entity.ContributorEntity;
 import com.example.githubanalyzer.entity.RepoEntity;
 import com.example.githubanalyzer.repository.ContributorRepository;
 import com.example.githubanalyzer.repository.RepoRepository;
+import com.example.githubanalyzer.service.CrawlPersister;
+import com.example.githubanalyzer.service.CrawlProgress;
+import com.example.githubanalyzer.service.CrawlResult;
 import com.example.githubanalyzer.service.GitHubService;
+import com.example.githubanalyzer.service.ReadSnapshot;
+import com.example.githubanalyzer.service.ReadSnapshotCache;
+import com.example.githubanalyzer.service.SyncReport;
+import com.example.githubanalyzer.service.UserProfileCache;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
-
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -40,10 +80,43 @@ public class SimpleDatabaseTest {
             return org.mockito.Mockito.mock(GitHubClient.class);
         }
 
+        @Bean(name = "githubCrawlExecutor", destroyMethod = "shutdown")
+        public ExecutorService githubCrawlExecutor() {
+            return Executors.newFixedThreadPool(4);
+        }
+
+        @Bean
+        public UserProfileCache userProfileCache() {
+            return new UserProfileCache(60, 100);
+        }
+
+        @Bean
+        public CrawlPersister crawlPersister() {
+            return new CrawlPersister();
+        }
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean(name = "readSnapshotExecutor", destroyMethod = "shutdown")
+        public ExecutorService readSnapshotExecutor() {
+            return Executors.newSingleThreadExecutor();
+        }
+
+        @Bean
+        public ReadSnapshotCache readSnapshotCache() {
+            return new ReadSnapshotCache();
+        }
+
         @Bean
         public GitHubService gitHubService(GitHubClient gitHubClient, 
                                           RepoRepository repoRepository, 
-                                          ContributorRepository contributorRepository) {
+                                          ContributorRepository contributorRepository,
+                                          ExecutorService githubCrawlExecutor,
+                                          UserProfileCache userProfileCache,
+                                          CrawlPersister crawlPersister) {
             GitHubService service = new GitHubService();
             // Use reflection to set the autowired fields
             try {
@@ -58,6 +131,18 @@ public class SimpleDatabaseTest {
                 java.lang.reflect.Field contribRepoField = GitHubService.class.getDeclaredField("contributorRepository");
                 contribRepoField.setAccessible(true);
                 contribRepoField.set(service, contributorRepository);
+
+                java.lang.reflect.Field executorField = GitHubService.class.getDeclaredField("crawlExecutor");
+                executorField.setAccessible(true);
+                executorField.set(service, githubCrawlExecutor);
+
+                java.lang.reflect.Field cacheField = GitHubService.class.getDeclaredField("userProfileCache");
+                cacheField.setAccessible(true);
+                cacheField.set(service, userProfileCache);
+
+                java.lang.reflect.Field persisterField = GitHubService.class.getDeclaredField("crawlPersister");
+                persisterField.setAccessible(true);
+                persisterField.set(service, crawlPersister);
             } catch (Exception e) {
                 throw new RuntimeException("Failed to set fields via reflection", e);
             }
@@ -77,6 +162,12 @@ public class SimpleDatabaseTest {
     @Autowired
     private GitHubClient gitHubClient;
 
+    @Autowired
+    private ReadSnapshotCache readSnapshotCache;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     public void testSaveAndRetrieveRepo() {
         // Create a test repository
@@ -196,6 +287,391 @@ public class SimpleDatabaseTest {
         }
     }
 
+    @Test
+    public void testContributorsAreInsertedInBatches() {
+        RepoEntity repo = new RepoEntity();
+        repo.setFullName("test/repo");
+        RepoEntity savedRepo = repoRepository.save(repo);
+
+        List<ContributorEntity> contributors = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            ContributorEntity contributor = new ContributorEntity();
+            contributor.setLogin("user" + i);
+            contributor.setContributions(i);
+            contributor.setRepo(savedRepo);
+            contributors.add(contributor);
+        }
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        entityManager.flush();
+        statistics.clear();
+
+        contributorRepository.saveAll(contributors);
+        entityManager.flush();
+
+        // 120 rows with a batch size of 50 take 3 insert batches plus 3 pooled sequence calls, not 120 round-trips
+        assertEquals(120, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 6,
+            "Expected batched inserts but got " + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    @Test
+    public void testFormattedInfoLoadsReposAndContributorsInOneStatement() {
+        for (int r = 1; r <= 3; r++) {
+            RepoEntity repo = new RepoEntity();
+            repo.setFullName("test/repo" + r);
+            repo.setStars(r * 100);
+            RepoEntity savedRepo = repoRepository.save(repo);
+
+            for (int c = 1; c <= 2; c++) {
+                ContributorEntity contributor = new ContributorEntity();
+                contributor.setLogin("user" + r + "-" + c);
+                contributor.setContributions(c);
+                contributor.setRepo(savedRepo);
+                contributorRepository.save(contributor);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        String formattedInfo = gitHubService.getFormattedRepoAndContributorInfo();
+
+        assertEquals(1, statistics.getPrepareStatementCount(), "Repositories and contributors should be loaded together");
+        assertTrue(formattedInfo.contains("Repository: test/repo3 (⭐ 300)"));
+        assertTrue(formattedInfo.contains("  - test/repo2 - user2-1,"));
+        assertTrue(formattedInfo.contains("  - test/repo3 - user3-2,"));
+
+        entityManager.clear();
+        statistics.clear();
+
+        List<ContributorEntity> contributors = contributorRepository.findAll();
+
+        assertEquals(6, contributors.size());
+        assertEquals(1, statistics.getPrepareStatementCount(), "Contributors should be loaded with their repositories");
+    }
+
+    @Test
+    public void testStreamingWritersProduceEveryRow() throws Exception {
+        RepoEntity withContributors = new RepoEntity();
+        withContributors.setFullName("test/streamed");
+        withContributors.setStars(42);
+        withContributors = repoRepository.save(withContributors);
+
+        for (int c = 1; c <= 3; c++) {
+            ContributorEntity contributor = new ContributorEntity();
+            contributor.setLogin("streamer" + c);
+            contributor.setContributions(c * 10);
+            contributor.setRepo(withContributors);
+            contributorRepository.save(contributor);
+        }
+
+        RepoEntity withoutContributors = new RepoEntity();
+        withoutContributors.setFullName("test/lonely");
+        repoRepository.save(withoutContributors);
+        entityManager.flush();
+        entityManager.clear();
+
+        StringWriter report = new StringWriter();
+        gitHubService.writeFormattedRepoAndContributorInfo(report);
+
+        assertEquals(gitHubService.getFormattedRepoAndContributorInfo(), report.toString());
+        assertTrue(report.toString().contains("Repository: test/streamed (⭐ 42)"));
+        assertTrue(report.toString().contains("  - test/streamed - streamer3, location: null, company: null, contributions: 30\n"));
+        assertTrue(report.toString().contains("Repository: test/lonely (⭐ 0)\nLanguage: null\nWatchers: 0\nOpen Issues: 0\nLicense: null\nContributors:\n\n"));
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        gitHubService.writeReposAsNdjson(json);
+
+        String[] lines = json.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(repoRepository.count(), lines.length);
+        JsonNode last = new ObjectMapper().readTree(lines[lines.length - 1]);
+        assertEquals("test/lonely", last.get("fullName").asText());
+        assertFalse(last.has("contributors"));
+    }
+
+    @Test
+    public void testReadEndpointsLoadProjectionsInOneStatementEach() throws Exception {
+        RepoEntity repo = new RepoEntity();
+        repo.setFullName("test/projected");
+        repo.setLanguage("Projected");
+        repo.setStars(7);
+        repo = repoRepository.save(repo);
+
+        for (int c = 1; c <= 3; c++) {
+            ContributorEntity contributor = new ContributorEntity();
+            contributor.setLogin("projected" + c);
+            contributor.setContributions(c);
+            contributor.setCompany("Company " + c);
+            contributor.setRepo(repo);
+            contributorRepository.save(contributor);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<RepoSummary> repos = gitHubService.getRepos(new RepoFilter(null, "Projected", null, null), null, null).items();
+        List<RepoWithContributorDTO> contributors = gitHubService.getContributors(
+            new ContributorFilter("test/projected", null, null), null, null).items();
+
+        assertEquals(2, statistics.getPrepareStatementCount(), "Each endpoint should run a single query");
+        assertEquals(0, statistics.getEntityLoadCount(), "Projections should not load entities");
+        assertEquals(1, repos.size());
+        assertEquals(7, repos.get(0).stars());
+        assertEquals(List.of("projected3", "projected2", "projected1"),
+            contributors.stream().map(RepoWithContributorDTO::login).toList());
+
+        RepoWithContributorDTO third = contributors.stream()
+            .filter(contributor -> contributor.login().equals("projected3"))
+            .findFirst().orElseThrow();
+        assertEquals(repo.getId(), third.repoId());
+        assertEquals("test/projected", third.repoFullName());
+        assertEquals("Company 3", third.company());
+
+        JsonNode json = new ObjectMapper().valueToTree(third);
+        assertFalse(json.has("repo"));
+        assertFalse(json.has("contentHash"));
+    }
+
+    @Test
+    public void testKeysetPagesWalkEveryFilteredRowOnce() {
+        int[] stars = {50, 40, 40, 40, 10};
+        for (int r = 0; r < stars.length; r++) {
+            RepoEntity repo = new RepoEntity();
+            repo.setFullName("test/paged" + r);
+            repo.setLanguage("Paged");
+            repo.setStars(stars[r]);
+            repoRepository.save(repo);
+        }
+        RepoEntity otherLanguage = new RepoEntity();
+        otherLanguage.setFullName("test/other-language");
+        otherLanguage.setLanguage("Go");
+        otherLanguage.setStars(45);
+        repoRepository.save(otherLanguage);
+        entityManager.flush();
+
+        RepoFilter filter = new RepoFilter(null, "Paged", null, 20);
+        KeysetPage<RepoSummary> first = gitHubService.getRepos(filter, null, 2);
+        assertEquals(List.of(50, 40), first.items().stream().map(RepoSummary::stars).toList());
+
+        // A row inserted before the cursor does not shift the following pages
+        RepoEntity inserted = new RepoEntity();
+        inserted.setFullName("test/paged-late");
+        inserted.setLanguage("Paged");
+        inserted.setStars(60);
+        repoRepository.save(inserted);
+        entityManager.flush();
+
+        KeysetPage<RepoSummary> second = gitHubService.getRepos(filter, first.nextCursor(), 2);
+        assertNull(second.nextCursor());
+
+        List<RepoSummary> walked = new ArrayList<>(first.items());
+        walked.addAll(second.items());
+        assertEquals(List.of(50, 40, 40, 40), walked.stream().map(RepoSummary::stars).toList());
+        assertEquals(4, walked.stream().map(RepoSummary::id).distinct().count());
+        for (int i = 1; i < walked.size(); i++) {
+            if (walked.get(i).stars() == walked.get(i - 1).stars()) {
+                assertTrue(walked.get(i).id() < walked.get(i - 1).id(), "Equal stars are ordered by descending id");
+            }
+        }
+    }
+
+    @Test
+    public void testLeaderboardSumsContributionsAcrossRepositories() {
+        RepoEntity first = new RepoEntity();
+        first.setFullName("test/leaderboard1");
+        first = repoRepository.save(first);
+        RepoEntity second = new RepoEntity();
+        second.setFullName("test/leaderboard2");
+        second = repoRepository.save(second);
+
+        Object[][] rows = {
+            {first, "alice", 10}, {second, "alice", 5}, {first, "bob", 15}, {second, "carol", 20}, {second, "dave", 1}
+        };
+        for (Object[] row : rows) {
+            ContributorEntity contributor = new ContributorEntity();
+            contributor.setRepo((RepoEntity) row[0]);
+            contributor.setLogin((String) row[1]);
+            contributor.setContributions((Integer) row[2]);
+            contributorRepository.save(contributor);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<LeaderboardEntry> leaderboard = gitHubService.getLeaderboard();
+
+        assertEquals(1, statistics.getPrepareStatementCount(), "The leaderboard should be a single aggregate query");
+        assertEquals(List.of(
+            new LeaderboardEntry(1, "carol", 20, 1),
+            new LeaderboardEntry(2, "alice", 15, 2),
+            new LeaderboardEntry(2, "bob", 15, 1),
+            new LeaderboardEntry(4, "dave", 1, 1)), leaderboard);
+        assertEquals(List.of("carol", "alice", "bob", "dave"), List.copyOf(gitHubService.getTopContributors().keySet()));
+        assertEquals(15, gitHubService.getTopContributors().get("alice"));
+    }
+
+    @Test
+    public void testSyncOnlyWritesChangedRows() throws Exception {
+        GitHubRepo lang = new GitHubRepo("commons-lang", "apache/commons-lang", "Lang", "https://github.com/apache/commons-lang",
+            4500, 4500, 2000, "Java", 120, 120, new GitHubRepo.License("Apache License 2.0"), null, null);
+        GitHubRepo io = new GitHubRepo("commons-io", "apache/commons-io", "IO", "https://github.com/apache/commons-io",
+            3500, 3500, 1500, "Java", 80, 80, new GitHubRepo.License("Apache License 2.0"), null, null);
+        when(gitHubClient.getOrgRepoPages(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> List.of(List.of(lang, io)).iterator());
+        when(gitHubClient.getRepoContributors(anyString(), anyInt())).thenReturn(List.of(new GitHubContributor("contributor1", 100)));
+        when(gitHubClient.getUserInfo(anyString())).thenReturn(new GitHubUser("contributor1", "Test Location", "Test Company"));
+
+        // First run inserts everything
+        gitHubService.fetchAndSaveTopApacheRepos();
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(new SyncReport(2, 0, 0, 2, 0, 0, 0), gitHubService.getLastSyncReport());
+
+        // Same data again: nothing is written
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        gitHubService.fetchAndSaveTopApacheRepos();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(new SyncReport(0, 0, 2, 0, 0, 2, 0), gitHubService.getLastSyncReport());
+        assertEquals(0, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityUpdateCount());
+        assertEquals(2, repoRepository.count());
+
+        // More stars on one repository and a new top contributor on both
+        GitHubRepo starredLang = new GitHubRepo("commons-lang", "apache/commons-lang", "Lang", "https://github.com/apache/commons-lang",
+            4600, 4600, 2000, "Java", 120, 120, new GitHubRepo.License("Apache License 2.0"), null, null);
+        when(gitHubClient.getOrgRepoPages(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> List.of(List.of(starredLang, io)).iterator());
+        when(gitHubClient.getRepoContributors(anyString(), anyInt())).thenReturn(List.of(new GitHubContributor("contributor2", 150)));
+        statistics.clear();
+        List<RepoEntity> syncedRepos = gitHubService.fetchAndSaveTopApacheRepos();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(new SyncReport(0, 1, 1, 2, 0, 0, 2), gitHubService.getLastSyncReport());
+        assertEquals(1, statistics.getEntityUpdateCount());
+        assertEquals(4600, syncedRepos.get(0).getStars());
+        assertEquals(2, repoRepository.count());
+        assertEquals(List.of("contributor2", "contributor2"),
+            contributorRepository.findAll().stream().map(ContributorEntity::getLogin).toList());
+    }
+
+    @Test
+    public void testDeltaRefreshOnlyFetchesChangedRepos() throws Exception {
+        GitHubRepo lang = new GitHubRepo("commons-lang", "apache/commons-lang", "Lang", "https://github.com/apache/commons-lang",
+            4500, 4500, 2000, "Java", 120, 120, new GitHubRepo.License("Apache License 2.0"),
+            "2024-01-01T10:00:00Z", "2024-01-01T10:00:00Z");
+        GitHubRepo io = new GitHubRepo("commons-io", "apache/commons-io", "IO", "https://github.com/apache/commons-io",
+            3500, 3500, 1500, "Java", 80, 80, new GitHubRepo.License("Apache License 2.0"),
+            "2024-01-01T10:00:00Z", "2024-01-01T10:00:00Z");
+        when(gitHubClient.getOrgRepoPages(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> List.of(List.of(lang, io)).iterator());
+        when(gitHubClient.getRepoContributors(anyString(), anyInt())).thenReturn(List.of(new GitHubContributor("contributor1", 100)));
+        when(gitHubClient.getUserInfo(anyString())).thenReturn(new GitHubUser("contributor1", "Test Location", "Test Company"));
+
+        gitHubService.fetchAndSaveTopApacheRepos();
+        entityManager.flush();
+        entityManager.clear();
+
+        // A push to commons-io only
+        GitHubRepo pushedIo = new GitHubRepo("commons-io", "apache/commons-io", "IO", "https://github.com/apache/commons-io",
+            3500, 3500, 1500, "Java", 80, 80, new GitHubRepo.License("Apache License 2.0"),
+            "2024-01-02T10:00:00Z", "2024-01-02T10:00:00Z");
+        when(gitHubClient.getOrgRepoPages(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> List.of(List.of(lang, pushedIo)).iterator());
+        clearInvocations(gitHubClient);
+
+        gitHubService.refreshChangedRepos(gitHubService.crawlRequest("apache", null, null, null), CrawlProgress.NONE);
+        entityManager.flush();
+        entityManager.clear();
+
+        verify(gitHubClient).getRepoContributors(eq("apache/commons-io"), anyInt());
+        verify(gitHubClient, never()).getRepoContributors(eq("apache/commons-lang"), anyInt());
+        assertEquals(new SyncReport(0, 1, 1, 0, 0, 1, 0), gitHubService.getLastSyncReport());
+        assertEquals(2, contributorRepository.count());
+        assertEquals(Instant.parse("2024-01-02T10:00:00Z"),
+            repoRepository.findByFullNameIn(List.of("apache/commons-io")).get(0).getPushedAt());
+
+        // Nothing changed since: one contributor list request is avoided per repository
+        CrawlResult unchanged = gitHubService.crawlTopRepos(gitHubService.crawlRequest("apache", null, null, null),
+            CrawlProgress.NONE, true);
+        assertEquals(2, unchanged.requestsAvoided());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testGitHubIsCalledOutsideTheWriteTransaction() throws Exception {
+        GitHubRepo lang = new GitHubRepo("commons-lang", "apache/commons-lang", "Lang", "https://github.com/apache/commons-lang",
+            4500, 4500, 2000, "Java", 120, 120, new GitHubRepo.License("Apache License 2.0"), null, null);
+        ConcurrentLinkedQueue<Boolean> transactionActive = new ConcurrentLinkedQueue<>();
+        when(gitHubClient.getOrgRepoPages(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            transactionActive.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return List.of(List.of(lang)).iterator();
+        });
+        when(gitHubClient.getRepoContributors(anyString(), anyInt())).thenAnswer(invocation -> {
+            transactionActive.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return List.of(new GitHubContributor("uncached-contributor", 100));
+        });
+        when(gitHubClient.getUserInfo(anyString())).thenAnswer(invocation -> {
+            transactionActive.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return new GitHubUser("uncached-contributor", "Test Location", "Test Company");
+        });
+
+        long transactionsBefore = gitHubService.getWriteTransactionStats().transactions();
+        try {
+            gitHubService.fetchAndSaveTopApacheRepos();
+
+            assertEquals(List.of(false, false, false), List.copyOf(transactionActive));
+            assertEquals(transactionsBefore + 1, gitHubService.getWriteTransactionStats().transactions());
+            assertEquals(1, contributorRepository.count());
+        } finally {
+            contributorRepository.deleteAll();
+            repoRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testCommittedCrawlReplacesTheReadSnapshot() throws Exception {
+        GitHubRepo snapshotted = new GitHubRepo("snapshotted", "apache/snapshotted", "Snapshot", "https://github.com/apache/snapshotted",
+            900, 900, 10, "Java", 1, 1, null, null, null);
+        when(gitHubClient.getOrgRepoPages(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> List.of(List.of(snapshotted)).iterator());
+        when(gitHubClient.getRepoContributors(anyString(), anyInt())).thenReturn(List.of(new GitHubContributor("snapshot-contributor", 5)));
+        when(gitHubClient.getUserInfo(anyString())).thenReturn(new GitHubUser("snapshot-contributor", null, null));
+
+        try {
+            ReadSnapshot before = readSnapshotCache.current();
+            assertSame(before, readSnapshotCache.current());
+
+            gitHubService.fetchAndSaveTopApacheRepos();
+
+            // The commit schedules a rebuild; reads get the previous snapshot until it is swapped in
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            ReadSnapshot after = readSnapshotCache.current();
+            while (after == before) {
+                assertTrue(System.nanoTime() < deadline, "Snapshot was not rebuilt in time");
+                Thread.sleep(10);
+                after = readSnapshotCache.current();
+            }
+            assertNotEquals(before.getETag(), after.getETag());
+            assertEquals(readSnapshotCache.currentETag(), after.getETag());
+            assertTrue(after.getTopRepos().stream().anyMatch(repo -> repo.get("name").equals("apache/snapshotted")));
+            assertTrue(after.getTopContributors().containsKey("snapshot-contributor"));
+
+            // The same crawl again changes no row, so the snapshot and its entity tag stay
+            gitHubService.fetchAndSaveTopApacheRepos();
+            assertSame(after, readSnapshotCache.current());
+        } finally {
+            contributorRepository.deleteAll();
+            repoRepository.deleteAll();
+        }
+    }
+
     @Test
     public void testRepoCountIncrease() throws Exception {
         // Count initial repositories
@@ -219,9 +695,12 @@ public class SimpleDatabaseTest {
         String userInfoJson = "{\"login\":\"contributor1\",\"company\":\"Test Company\",\"location\":\"Test Location\"}";
 
         // Configure mock responses
-        when(gitHubClient.getApacheRepos(anyInt())).thenReturn(reposJson);
-        when(gitHubClient.getRepoContributors(anyString(), anyInt())).thenReturn(contributorsJson);
-        when(gitHubClient.getUserInfo(anyString())).thenReturn(userInfoJson);
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<GitHubRepo> repos = objectMapper.readValue(reposJson, new TypeReference<>() {});
+        when(gitHubClient.getOrgRepoPages(anyString(), anyInt(), anyInt())).thenReturn(List.of(repos).iterator());
+        when(gitHubClient.getRepoContributors(anyString(), anyInt()))
+            .thenReturn(objectMapper.readValue(contributorsJson, new TypeReference<>() {}));
+        when(gitHubClient.getUserInfo(anyString())).thenReturn(objectMapper.readValue(userInfoJson, GitHubUser.class));
 
         // Call the service method
         List<RepoEntity> savedRepos = gitHubService.fetchAndSaveTopApacheRepos();
@@ -0,0 +1,34 @@
+package com.example.githubanalyzer.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConditionalRequestCacheTest {
+
+    @Test
+    void testListingPagesHaveTheirOwnBound() {
+        ConditionalRequestCache cache = new ConditionalRequestCache(10, 2);
+        cache.store("/users/octocat", "\"u\"", null, "octocat", null, false);
+        for (int page = 1; page <= 3; page++) {
+            cache.store("/orgs/apache/repos?page=" + page, "\"p" + page + "\"", null, List.of(page), null, true);
+        }
+
+        // The oldest page was evicted without touching the single resource
+        assertNull(cache.lookup("/orgs/apache/repos?page=1"));
+        assertEquals(List.of(3), cache.lookup("/orgs/apache/repos?page=3").body());
+        assertEquals("octocat", cache.lookup("/users/octocat").body());
+        assertEquals(3, cache.getStats().entries());
+    }
+
+    @Test
+    void testResponsesWithoutValidatorsAreNotKept() {
+        ConditionalRequestCache cache = new ConditionalRequestCache(10, 2);
+        cache.store("/users/octocat", null, null, "octocat", null, false);
+
+        assertNull(cache.lookup("/users/octocat"));
+        assertEquals(0, cache.getStats().entries());
+    }
+}
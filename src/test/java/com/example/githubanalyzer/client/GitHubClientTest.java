@@ -0,0 +1,312 @@
+package com.example.githubanalyzer.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the client against a local stub server emitting GitHub's rate limit headers
+ */
+class GitHubClientTest {
+
+    private static final String USER_JSON = "{\"login\":\"octocat\",\"location\":\"San Francisco\",\"company\":\"GitHub\"}";
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private final List<Long> sleeps = new ArrayList<>();
+    private final List<StubResponse> responses = new CopyOnWriteArrayList<>();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+    private final List<String> cacheControl = new CopyOnWriteArrayList<>();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private HttpServer server;
+    private CloseableHttpClient httpClient;
+    private GitHubClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+
+        httpClient = HttpClients.createDefault();
+        client = clientWithTokens(List.of("test-token"));
+    }
+
+    private GitHubClient clientWithTokens(List<String> tokens) {
+        RateLimitScheduler.Sleeper sleeper = millis -> {
+            sleeps.add(millis);
+            now.addAndGet(millis);
+        };
+        TokenPool tokenPool = new TokenPool(tokens, 1,
+            () -> new RateLimitScheduler(10, Duration.ofSeconds(60), now::get, sleeper), sleeper);
+        GitHubClient gitHubClient = new GitHubClient(httpClient, new ConditionalRequestCache(100, 100), tokenPool, Runnable::run,
+                                                    meterRegistry);
+        ReflectionTestUtils.setField(gitHubClient, "apiBaseUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        return gitHubClient;
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+        ifNoneMatch.add(String.valueOf(exchange.getRequestHeaders().getFirst("If-None-Match")));
+        cacheControl.add(String.valueOf(exchange.getRequestHeaders().getFirst("Cache-Control")));
+        requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath() + " "
+                     + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        StubResponse response = responses.remove(0);
+        response.headers().forEach((name, value) -> exchange.getResponseHeaders().add(name, value));
+        byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(response.status(), body.length > 0 ? body.length : -1);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private String resetIn(long seconds) {
+        return String.valueOf(now.get() / 1000 + seconds);
+    }
+
+    @Test
+    void testWaitsUntilResetAfterPrimaryRateLimit() throws Exception {
+        responses.add(new StubResponse(403, Map.of(
+            "X-RateLimit-Limit", "5000", "X-RateLimit-Remaining", "0", "X-RateLimit-Reset", resetIn(30)),
+            "{\"message\":\"API rate limit exceeded for user.\"}"));
+        responses.add(new StubResponse(200, Map.of(
+            "X-RateLimit-Limit", "5000", "X-RateLimit-Remaining", "4999", "X-RateLimit-Reset", resetIn(3630)),
+            USER_JSON));
+
+        GitHubUser user = client.getUserInfo("octocat");
+
+        assertEquals("GitHub", user.company());
+        assertEquals(List.of(30_000L), sleeps);
+        assertEquals(List.of("token test-token", "token test-token"), authorizations);
+
+        RateLimitScheduler.Stats stats = client.getRateLimitStats().get(0).usage();
+        assertEquals(5000, stats.limit());
+        assertEquals(4999, stats.remaining());
+        assertEquals(1, stats.throttledResponses());
+    }
+
+    @Test
+    void testHonorsRetryAfterOnTooManyRequests() throws Exception {
+        responses.add(new StubResponse(429, Map.of("Retry-After", "2"), "{\"message\":\"Too many requests\"}"));
+        responses.add(new StubResponse(200, Map.of(), USER_JSON));
+
+        assertEquals("octocat", client.getUserInfo("octocat").login());
+        assertEquals(List.of(2_000L), sleeps);
+    }
+
+    @Test
+    void testGivesUpAfterMaxRetriesOfSecondaryRateLimit() {
+        String secondaryLimit = "{\"message\":\"You have exceeded a secondary rate limit.\"}";
+        responses.add(new StubResponse(403, Map.of(), secondaryLimit));
+        responses.add(new StubResponse(403, Map.of(), secondaryLimit));
+
+        GitHubApiException e = assertThrows(GitHubApiException.class, () -> client.getUserInfo("octocat"));
+
+        assertEquals(403, e.getStatusCode());
+        assertTrue(e.isRateLimited());
+        assertEquals(2, authorizations.size());
+        assertEquals(List.of(60_000L), sleeps);
+    }
+
+    @Test
+    void testDoesNotRetryForbiddenWithoutRateLimit() {
+        responses.add(new StubResponse(403, Map.of("X-RateLimit-Remaining", "4000"),
+            "{\"message\":\"Resource not accessible by integration\"}"));
+
+        GitHubApiException e = assertThrows(GitHubApiException.class, () -> client.getUserInfo("octocat"));
+
+        assertEquals(403, e.getStatusCode());
+        assertFalse(e.isRateLimited());
+        assertEquals(1, authorizations.size());
+        assertTrue(sleeps.isEmpty());
+        assertEquals(0, client.getRateLimitStats().get(0).usage().throttledResponses());
+    }
+
+    @Test
+    void testMissingUserGetsLoginOnlyProfile() throws Exception {
+        responses.add(new StubResponse(404, Map.of(), "{\"message\":\"Not Found\"}"));
+
+        GitHubUser user = client.getUserInfo("deleted-user");
+
+        assertEquals(new GitHubUser("deleted-user", null, null), user);
+        assertEquals(1, authorizations.size());
+    }
+
+    @Test
+    void testRetriesWithAnotherTokenWhenOneIsExhausted() throws Exception {
+        client = clientWithTokens(List.of("first-token", "second-token"));
+        responses.add(new StubResponse(403, Map.of(
+            "X-RateLimit-Limit", "5000", "X-RateLimit-Remaining", "0", "X-RateLimit-Reset", resetIn(1800)),
+            "{\"message\":\"API rate limit exceeded for user.\"}"));
+        responses.add(new StubResponse(200, Map.of(
+            "X-RateLimit-Limit", "5000", "X-RateLimit-Remaining", "4999", "X-RateLimit-Reset", resetIn(3600)),
+            USER_JSON));
+
+        assertEquals("octocat", client.getUserInfo("octocat").login());
+
+        // The exhausted token is parked until its reset, the other one answers without waiting
+        assertEquals(List.of("token first-token", "token second-token"), authorizations);
+        assertTrue(sleeps.isEmpty());
+        List<TokenPool.TokenStats> stats = client.getRateLimitStats();
+        assertTrue(stats.get(0).parked());
+        assertFalse(stats.get(1).parked());
+        assertEquals(4999, stats.get(1).usage().remaining());
+    }
+
+    @Test
+    void testTimesEveryAttemptByEndpointAndStatus() throws Exception {
+        responses.add(new StubResponse(429, Map.of("Retry-After", "1"), "{\"message\":\"Too many requests\"}"));
+        responses.add(new StubResponse(200, Map.of(), USER_JSON));
+
+        client.getUserInfo("octocat");
+
+        Timer throttled = meterRegistry.get("github.api.requests").tags("endpoint", "users", "status", "429").timer();
+        Timer answered = meterRegistry.get("github.api.requests").tags("endpoint", "users", "status", "200").timer();
+        assertEquals(1, throttled.count());
+        assertEquals(1, answered.count());
+        assertEquals(0, meterRegistry.get("github.api.requests.active").tag("endpoint", "users").gauge().value());
+    }
+
+    @Test
+    void testServesNotModifiedFromCache() throws Exception {
+        responses.add(new StubResponse(200, Map.of("ETag", "\"v1\""), USER_JSON));
+        responses.add(new StubResponse(304, Map.of("ETag", "\"v1\""), ""));
+
+        GitHubUser first = client.getUserInfo("octocat");
+        GitHubUser second = client.getUserInfo("octocat");
+
+        assertEquals("San Francisco", second.location());
+        assertSame(first, second);
+        // The second request carried the validator, and only the 304 counts as a hit
+        assertEquals(List.of("null", "\"v1\""), ifNoneMatch);
+        assertEquals(new ConditionalRequestCache.Stats(1, 1, 1), client.getConditionalCacheStats());
+        assertEquals(1, meterRegistry.get("github.api.requests").tags("endpoint", "users", "status", "304").timer().count());
+    }
+
+    @Test
+    void testNotModifiedWithoutCachedResponseIsRetriedUnconditionally() throws Exception {
+        responses.add(new StubResponse(304, Map.of(), ""));
+        responses.add(new StubResponse(200, Map.of("ETag", "\"v1\""), USER_JSON));
+
+        GitHubUser user = client.getUserInfo("octocat");
+
+        assertEquals("San Francisco", user.location());
+        assertEquals(List.of("null", "null"), ifNoneMatch);
+        assertEquals(List.of("null", "no-cache"), cacheControl);
+        assertEquals(new ConditionalRequestCache.Stats(0, 1, 1), client.getConditionalCacheStats());
+    }
+
+    @Test
+    void testGivesUpOnRepeatedNotModifiedWithoutCachedResponse() {
+        responses.add(new StubResponse(304, Map.of(), ""));
+        responses.add(new StubResponse(304, Map.of(), ""));
+
+        GitHubApiException e = assertThrows(GitHubApiException.class, () -> client.getUserInfo("octocat"));
+
+        assertEquals(304, e.getStatusCode());
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    void testChangedResourceIsAMiss() throws Exception {
+        responses.add(new StubResponse(200, Map.of("ETag", "\"v1\""), USER_JSON));
+        responses.add(new StubResponse(200, Map.of("ETag", "\"v2\""), USER_JSON.replace("San Francisco", "Berlin")));
+
+        client.getUserInfo("octocat");
+        GitHubUser changed = client.getUserInfo("octocat");
+
+        assertEquals("Berlin", changed.location());
+        assertEquals(new ConditionalRequestCache.Stats(0, 2, 1), client.getConditionalCacheStats());
+    }
+
+    @Test
+    void testFetchesUserProfilesInOneGraphQLRequest() throws Exception {
+        responses.add(new StubResponse(200, Map.of(
+            "X-RateLimit-Resource", "graphql", "X-RateLimit-Limit", "5000", "X-RateLimit-Remaining", "4999"),
+            "{\"data\":{\"u0\":" + USER_JSON + ",\"u1\":null},"
+            + "\"errors\":[{\"type\":\"NOT_FOUND\",\"path\":[\"u1\"]}]}"));
+
+        Map<String, GitHubUser> users = client.getUsersInfo(List.of("octocat", "dependabot[bot]"));
+
+        assertEquals(List.of("octocat", "dependabot[bot]"), List.copyOf(users.keySet()));
+        assertEquals("San Francisco", users.get("octocat").location());
+        assertEquals(new GitHubUser("dependabot[bot]", null, null), users.get("dependabot[bot]"));
+
+        // One POST, logins bound as variables of aliased user fields
+        assertEquals(1, requests.size());
+        String request = requests.get(0);
+        assertTrue(request.startsWith("POST /graphql "));
+        assertTrue(request.contains("u0: user(login: $l0)"));
+        assertTrue(request.contains("u1: user(login: $l1)"));
+        assertTrue(request.contains("\"l1\":\"dependabot[bot]\""));
+        // The GraphQL budget is separate from the core budget the scheduler paces
+        assertEquals(-1, client.getRateLimitStats().get(0).usage().remaining());
+    }
+
+    @Test
+    void testRetriesGraphQLRateLimitedError() throws Exception {
+        responses.add(new StubResponse(200, Map.of("X-RateLimit-Resource", "graphql", "Retry-After", "3"),
+            "{\"data\":null,\"errors\":[{\"type\":\"RATE_LIMITED\",\"message\":\"API rate limit exceeded\"}]}"));
+        responses.add(new StubResponse(200, Map.of("X-RateLimit-Resource", "graphql"), "{\"data\":{\"u0\":" + USER_JSON + "}}"));
+
+        Map<String, GitHubUser> users = client.getUsersInfo(List.of("octocat"));
+
+        assertEquals("San Francisco", users.get("octocat").location());
+        assertEquals(2, requests.size());
+        // The token was parked for the Retry-After period before the second attempt
+        assertEquals(List.of(3000L), sleeps);
+        assertEquals(1, client.getRateLimitStats().get(0).usage().throttledResponses());
+    }
+
+    @Test
+    void testRejectsGraphQLErrorWithoutData() {
+        responses.add(new StubResponse(200, Map.of(), "{\"errors\":[{\"message\":\"Bad credentials\"}]}"));
+
+        GitHubApiException e = assertThrows(GitHubApiException.class, () -> client.getUsersInfo(List.of("octocat")));
+
+        assertTrue(e.getMessage().contains("Bad credentials"));
+    }
+
+    @Test
+    void testLimitsGraphQLBatchSize() {
+        List<String> logins = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            logins.add("user" + i);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> client.getUsersInfo(logins));
+        assertTrue(requests.isEmpty());
+    }
+
+    private record StubResponse(int status, Map<String, String> headers, String body) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.githubanalyzer.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageIteratorTest {
+
+    private final Map<String, GitHubPage<String>> pages = Map.of(
+        "page1", new GitHubPage<>("[1]", "page2"),
+        "page2", new GitHubPage<>("[2]", "page3"),
+        "page3", new GitHubPage<>("[3]", null));
+
+    private final List<String> requested = new CopyOnWriteArrayList<>();
+
+    private GitHubPage<String> fetch(String url) {
+        requested.add(url);
+        return pages.get(url);
+    }
+
+    @Test
+    void testFollowsNextLinksUntilLastPage() {
+        PageIterator<String> iterator = new PageIterator<>(this::fetch, "page1", 0, Runnable::run);
+
+        List<String> bodies = new ArrayList<>();
+        iterator.forEachRemaining(bodies::add);
+
+        assertEquals(List.of("[1]", "[2]", "[3]"), bodies);
+        assertEquals(List.of("page1", "page2", "page3"), requested);
+    }
+
+    @Test
+    void testPrefetchesNextPageAndStopsAtPageLimit() {
+        PageIterator<String> iterator = new PageIterator<>(this::fetch, "page1", 2, Runnable::run);
+
+        assertEquals("[1]", iterator.next());
+        assertEquals(List.of("page1", "page2"), requested, "The second page should be prefetched");
+
+        assertEquals("[2]", iterator.next());
+        assertFalse(iterator.hasNext());
+        assertEquals(List.of("page1", "page2"), requested, "No page beyond the limit should be fetched");
+    }
+
+    @Test
+    void testNextPageUrlIsParsedFromLinkHeader() {
+        String link = "<https://api.github.com/organizations/47359/repos?page=2>; rel=\"next\", "
+                    + "<https://api.github.com/organizations/47359/repos?page=20>; rel=\"last\"";
+
+        assertEquals("https://api.github.com/organizations/47359/repos?page=2", GitHubClient.nextPageUrl(link));
+        assertNull(GitHubClient.nextPageUrl("<https://api.github.com/organizations/47359/repos?page=1>; rel=\"prev\""));
+        assertNull(GitHubClient.nextPageUrl(null));
+    }
+}
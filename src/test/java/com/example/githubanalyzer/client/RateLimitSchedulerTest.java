@@ -0,0 +1,88 @@
+package com.example.githubanalyzer.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitSchedulerTest {
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private final List<Long> sleeps = new ArrayList<>();
+
+    private RateLimitScheduler scheduler(int burst) {
+        return new RateLimitScheduler(burst, Duration.ofSeconds(60), now::get, millis -> {
+            sleeps.add(millis);
+            now.addAndGet(millis);
+        });
+    }
+
+    private long secondsFromNow(long seconds) {
+        return now.get() / 1000 + seconds;
+    }
+
+    @Test
+    void testDoesNotWaitWhileBudgetIsUnknown() throws Exception {
+        RateLimitScheduler scheduler = scheduler(1);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, scheduler.acquire());
+        }
+        assertTrue(sleeps.isEmpty());
+        assertEquals(-1, scheduler.getStats().remaining());
+    }
+
+    @Test
+    void testSendsBurstThenSpreadsRemainingBudgetUntilReset() throws Exception {
+        RateLimitScheduler scheduler = scheduler(2);
+        scheduler.update(5000L, 10L, secondsFromNow(10));
+
+        assertEquals(0, scheduler.acquire());
+        assertEquals(0, scheduler.acquire());
+
+        // 8 requests left for 10 seconds: one every 1.25 seconds
+        long wait = scheduler.acquire();
+        assertTrue(wait >= 1250 && wait <= 1251, "Unexpected wait " + wait);
+        assertEquals(3, scheduler.getStats().requests());
+        assertEquals(1, scheduler.getStats().delayedRequests());
+    }
+
+    @Test
+    void testWaitsExactlyUntilResetWhenBudgetIsUsedUp() throws Exception {
+        RateLimitScheduler scheduler = scheduler(10);
+        scheduler.update(5000L, 0L, secondsFromNow(30));
+
+        assertEquals(30_000, scheduler.getStats().waitMillis());
+        assertEquals(30_000, scheduler.acquire());
+
+        // The new window starts with the full budget
+        assertEquals(0, scheduler.acquire());
+        assertEquals(List.of(30_000L), sleeps);
+        assertEquals(30_000, scheduler.getStats().totalWaitMillis());
+    }
+
+    @Test
+    void testBackOffHonorsRetryAfterThenFallsBackToSecondaryDelay() throws Exception {
+        RateLimitScheduler scheduler = scheduler(10);
+
+        assertEquals(5_000, scheduler.backOff(5L));
+        assertEquals(5_000, scheduler.acquire());
+
+        assertEquals(60_000, scheduler.backOff(null));
+        assertEquals(60_000, scheduler.acquire());
+        assertEquals(2, scheduler.getStats().throttledResponses());
+    }
+
+    @Test
+    void testBackOffWithoutRetryAfterWaitsForResetOfUsedUpBudget() throws Exception {
+        RateLimitScheduler scheduler = scheduler(10);
+        scheduler.update(5000L, 0L, secondsFromNow(42));
+
+        assertEquals(42_000, scheduler.backOff(null));
+        assertEquals(42_000, scheduler.acquire());
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.githubanalyzer.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenPoolTest {
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private final List<Long> sleeps = new ArrayList<>();
+
+    private final RateLimitScheduler.Sleeper sleeper = millis -> {
+        sleeps.add(millis);
+        now.addAndGet(millis);
+    };
+
+    private TokenPool pool(String... tokens) {
+        return new TokenPool(List.of(tokens), 3,
+            () -> new RateLimitScheduler(100, Duration.ofSeconds(60), now::get, sleeper), sleeper);
+    }
+
+    private long secondsFromNow(long seconds) {
+        return now.get() / 1000 + seconds;
+    }
+
+    @Test
+    void testRoutesToTokenWithMostRemainingBudget() throws Exception {
+        TokenPool pool = pool("token-aaaa-1111", "token-bbbb-2222");
+        pool.acquire().scheduler().update(5000L, 100L, secondsFromNow(3600));
+        pool.acquire().scheduler().update(5000L, 4000L, secondsFromNow(3600));
+
+        assertEquals("token-bbbb-2222", pool.acquire().value());
+        assertEquals("token-bbbb-2222", pool.acquire().value());
+        assertTrue(sleeps.isEmpty());
+    }
+
+    @Test
+    void testTriesUnusedTokensBeforeKnownBudgets() throws Exception {
+        TokenPool pool = pool("token-aaaa-1111", "token-bbbb-2222", "token-cccc-3333");
+
+        TokenPool.PooledToken first = pool.acquire();
+        first.scheduler().update(5000L, 4999L, secondsFromNow(3600));
+        TokenPool.PooledToken second = pool.acquire();
+        second.scheduler().update(5000L, 4999L, secondsFromNow(3600));
+        TokenPool.PooledToken third = pool.acquire();
+
+        assertEquals(List.of("token-aaaa-1111", "token-bbbb-2222", "token-cccc-3333"),
+            List.of(first.value(), second.value(), third.value()));
+    }
+
+    @Test
+    void testParksExhaustedTokensAndWaitsForEarliestReset() throws Exception {
+        TokenPool pool = pool("token-aaaa-1111", "token-bbbb-2222");
+        pool.acquire().scheduler().update(5000L, 0L, secondsFromNow(600));
+        pool.acquire().scheduler().update(5000L, 0L, secondsFromNow(300));
+
+        List<TokenPool.TokenStats> stats = pool.getStats();
+        assertTrue(stats.get(0).parked());
+        assertTrue(stats.get(1).parked());
+
+        // Both budgets are used up: the token resetting first is taken once it resets
+        assertEquals("token-bbbb-2222", pool.acquire().value());
+        assertEquals(List.of(300_000L), sleeps);
+        assertFalse(pool.getStats().get(1).parked());
+    }
+
+    @Test
+    void testMasksTokensAndIgnoresBlankEntries() {
+        TokenPool pool = pool("ghp_0123456789abcdef", " ", "short");
+
+        List<TokenPool.TokenStats> stats = pool.getStats();
+        assertEquals(2, stats.size());
+        assertEquals("****cdef", stats.get(0).token());
+        assertEquals("****", stats.get(1).token());
+        assertThrows(IllegalArgumentException.class, () -> pool(" "));
+    }
+
+    @Test
+    void testExportsBudgetPerMaskedToken() throws Exception {
+        TokenPool pool = pool("token-aaaa-1111", "token-bbbb-2222");
+        MeterRegistry registry = new SimpleMeterRegistry();
+        pool.bindTo(registry);
+
+        pool.acquire().scheduler().update(5000L, 0L, secondsFromNow(600));
+        pool.acquire().scheduler().update(5000L, 4000L, secondsFromNow(3600));
+
+        assertEquals(0, registry.get("github.ratelimit.remaining").tag("token", "****1111").gauge().value());
+        assertEquals(1, registry.get("github.ratelimit.parked").tag("token", "****1111").gauge().value());
+        assertEquals(600_000, registry.get("github.ratelimit.wait").tag("token", "****1111").gauge().value());
+        assertEquals(4000, registry.get("github.ratelimit.remaining").tag("token", "****2222").gauge().value());
+        assertEquals(0, registry.get("github.ratelimit.parked").tag("token", "****2222").gauge().value());
+        assertEquals(0, registry.get("github.ratelimit.wait").tag("token", "****2222").gauge().value());
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.githubanalyzer.service;
+
+import com.example.githubanalyzer.entity.RepoEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CrawlJobServiceTest {
+
+    @Mock
+    private GitHubService gitHubService;
+
+    @InjectMocks
+    private CrawlJobService crawlJobService;
+
+    private ExecutorService jobExecutor;
+
+    private static final CrawlRequest APACHE = new CrawlRequest("apache", 100, 5, 10);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        jobExecutor = Executors.newSingleThreadExecutor();
+        ReflectionTestUtils.setField(crawlJobService, "jobExecutor", jobExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobExecutor.shutdownNow();
+    }
+
+    private static RepoEntity repo(String fullName) {
+        RepoEntity repo = new RepoEntity();
+        repo.setFullName(fullName);
+        return repo;
+    }
+
+    private static void awaitFinished(CrawlJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!job.isFinished()) {
+            assertTrue(System.nanoTime() < deadline, "Job did not finish in time");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testCoalescesTriggersWhileCrawlIsRunning() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SyncReport report = new SyncReport(1, 0, 0, 10, 0, 0, 0);
+        when(gitHubService.fetchAndSaveTopRepos(eq(APACHE), any(CrawlProgress.class))).thenAnswer(invocation -> {
+            CrawlProgress progress = invocation.getArgument(1);
+            progress.stageStarted(CrawlStage.FETCHING_REPOSITORIES);
+            progress.repositoriesScanned(100);
+            started.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            progress.stageStarted(CrawlStage.SAVING);
+            progress.synced(report, 12);
+            return List.of(repo("apache/commons-lang"));
+        });
+
+        CrawlJob first = crawlJobService.submitFetchAndSave(APACHE);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CrawlJob second = crawlJobService.submitFetchAndSave(APACHE);
+
+        assertSame(first, second);
+        CrawlJob.Status running = first.getStatus();
+        assertEquals(CrawlStage.FETCHING_REPOSITORIES, running.stage());
+        assertEquals(100, running.reposScanned());
+        assertEquals(1, running.coalescedTriggers());
+        assertNotNull(running.startedAt());
+        assertNull(running.finishedAt());
+
+        release.countDown();
+        awaitFinished(first);
+
+        CrawlJob.Status completed = crawlJobService.getJob(first.getId()).getStatus();
+        assertEquals(CrawlStage.COMPLETED, completed.stage());
+        assertEquals(List.of("apache/commons-lang"), completed.repositories());
+        assertEquals(report, completed.syncReport());
+        assertTrue(completed.stageMillis().containsKey(CrawlStage.SAVING));
+        verify(gitHubService, times(1)).fetchAndSaveTopRepos(eq(APACHE), any(CrawlProgress.class));
+
+        // A trigger after completion starts a new crawl
+        CrawlJob third = crawlJobService.submitFetchAndSave(APACHE);
+        assertNotEquals(first.getId(), third.getId());
+        awaitFinished(third);
+        verify(gitHubService, times(2)).fetchAndSaveTopRepos(eq(APACHE), any(CrawlProgress.class));
+    }
+
+    @Test
+    void testOnlyIdenticalTriggersJoinARunningCrawl() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(gitHubService.fetchAndSaveTopRepos(eq(APACHE), any(CrawlProgress.class))).thenAnswer(invocation -> {
+            started.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return List.of(repo("apache/commons-lang"));
+        });
+        when(gitHubService.getOrgs()).thenReturn(List.of("apache"));
+        when(gitHubService.crawlRequest("apache", null, null, null)).thenReturn(APACHE);
+
+        CrawlJob first = crawlJobService.submitFetchAndSave(APACHE);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Logins are case-insensitive
+        assertSame(first, crawlJobService.submitFetchAndSave(new CrawlRequest("Apache", 100, 5, 10)));
+        CrawlConflictException conflict = assertThrows(CrawlConflictException.class,
+            () -> crawlJobService.submitFetchAndSave(new CrawlRequest("APACHE", 100, 50, 10)));
+        assertSame(first, conflict.getActiveJob());
+        // A delta refresh with the same parameters is a different crawl, so the organization is skipped
+        assertEquals(List.of(), crawlJobService.submitDeltaRefresh());
+
+        CrawlJob.Status running = first.getStatus();
+        assertEquals(1, running.coalescedTriggers());
+        assertEquals(CrawlKind.FULL, running.kind());
+        assertEquals(APACHE, running.request());
+
+        release.countDown();
+        awaitFinished(first);
+        verify(gitHubService, times(1)).fetchAndSaveTopRepos(any(CrawlRequest.class), any(CrawlProgress.class));
+        verify(gitHubService, never()).refreshChangedRepos(any(CrawlRequest.class), any(CrawlProgress.class));
+    }
+
+    @Test
+    void testReportsFailedCrawl() throws Exception {
+        when(gitHubService.fetchAndSaveTopRepos(eq(APACHE), any(CrawlProgress.class)))
+            .thenThrow(new RuntimeException("GitHub API request failed"));
+
+        CrawlJob job = crawlJobService.submitFetchAndSave(APACHE);
+        awaitFinished(job);
+
+        CrawlJob.Status status = job.getStatus();
+        assertEquals(CrawlStage.FAILED, status.stage());
+        assertEquals("GitHub API request failed", status.error());
+        assertNull(status.repositories());
+    }
+
+    @Test
+    void testEvictsOldestFinishedJobs() throws Exception {
+        ReflectionTestUtils.setField(crawlJobService, "historySize", 1);
+        when(gitHubService.fetchAndSaveTopRepos(eq(APACHE), any(CrawlProgress.class))).thenReturn(List.of());
+
+        CrawlJob first = crawlJobService.submitFetchAndSave(APACHE);
+        awaitFinished(first);
+        CrawlJob second = crawlJobService.submitFetchAndSave(APACHE);
+        awaitFinished(second);
+
+        assertNull(crawlJobService.getJob(first.getId()));
+        assertSame(second, crawlJobService.getJob(second.getId()));
+    }
+
+    @Test
+    void testDeltaRefreshRunsAsJob() throws Exception {
+        when(gitHubService.refreshChangedRepos(eq(APACHE), any(CrawlProgress.class))).thenReturn(List.of(repo("apache/commons-lang")));
+
+        when(gitHubService.getOrgs()).thenReturn(List.of("apache"));
+        when(gitHubService.crawlRequest("apache", null, null, null)).thenReturn(APACHE);
+
+        List<CrawlJob> jobs = crawlJobService.submitDeltaRefresh();
+        assertEquals(1, jobs.size());
+        CrawlJob job = jobs.get(0);
+        awaitFinished(job);
+
+        assertEquals(CrawlStage.COMPLETED, job.getStatus().stage());
+        assertEquals(CrawlKind.DELTA_REFRESH, job.getStatus().kind());
+        assertEquals(List.of("apache/commons-lang"), job.getStatus().repositories());
+        verify(gitHubService, never()).fetchAndSaveTopRepos(any(CrawlRequest.class), any(CrawlProgress.class));
+    }
+
+    @Test
+    void testOrganizationsAreCrawledInParallel() throws Exception {
+        jobExecutor.shutdownNow();
+        jobExecutor = Executors.newFixedThreadPool(2);
+        ReflectionTestUtils.setField(crawlJobService, "jobExecutor", jobExecutor);
+
+        CrawlRequest eclipse = new CrawlRequest("eclipse", 100, 5, 10);
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        when(gitHubService.fetchAndSaveTopRepos(any(CrawlRequest.class), any(CrawlProgress.class))).thenAnswer(invocation -> {
+            CrawlRequest request = invocation.getArgument(0);
+            bothRunning.countDown();
+            // Each crawl only finishes once the other one has started as well
+            assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+            return List.of(repo(request.org() + "/top"));
+        });
+
+        List<CrawlJob> jobs = crawlJobService.submitFetchAndSave(List.of(APACHE, eclipse));
+        for (CrawlJob job : jobs) {
+            awaitFinished(job);
+        }
+
+        assertEquals(List.of("apache", "eclipse"), jobs.stream().map(CrawlJob::getOrg).toList());
+        assertEquals(List.of("apache/top"), jobs.get(0).getStatus().repositories());
+        assertEquals(List.of("eclipse/top"), jobs.get(1).getStatus().repositories());
+    }
+
+    @Test
+    void testErrorFailsJobAndReleasesOrganization() throws Exception {
+        when(gitHubService.fetchAndSaveTopRepos(eq(APACHE), any(CrawlProgress.class)))
+            .thenThrow(new OutOfMemoryError("Java heap space"))
+            .thenReturn(List.of(repo("apache/commons-lang")));
+
+        CrawlJob failed = crawlJobService.submitFetchAndSave(APACHE);
+        awaitFinished(failed);
+
+        assertEquals(CrawlStage.FAILED, failed.getStatus().stage());
+        assertEquals("Java heap space", failed.getStatus().error());
+
+        // The organization is free again, so the next trigger starts a new crawl
+        CrawlJob retried = crawlJobService.submitFetchAndSave(APACHE);
+        assertNotEquals(failed.getId(), retried.getId());
+        awaitFinished(retried);
+        assertEquals(CrawlStage.COMPLETED, retried.getStatus().stage());
+    }
+}
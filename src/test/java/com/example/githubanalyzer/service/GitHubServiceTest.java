@@ -1,18 +1,41 @@
 package com.example.githubanalyzer.service;
 
+import com.example.githubanalyzer.client.GitHubApiException;
 import com.example.githubanalyzer.client.GitHubClient;
+import com.example.githubanalyzer.client.GitHubContributor;
+import com.example.githubanalyzer.client.GitHubRepo;
+import com.example.githubanalyzer.client.GitHubUser;
+import com.example.githubanalyzer.dto.ContributorFilter;
+import com.example.githubanalyzer.dto.ContributorTotal;
+import com.example.githubanalyzer.dto.KeysetPage;
+import com.example.githubanalyzer.dto.LeaderboardEntry;
+import com.example.githubanalyzer.dto.RepoFilter;
+import com.example.githubanalyzer.dto.RepoSummary;
+import com.example.githubanalyzer.dto.RepoWithContributorDTO;
 import com.example.githubanalyzer.entity.ContributorEntity;
 import com.example.githubanalyzer.entity.RepoEntity;
 import com.example.githubanalyzer.repository.ContributorRepository;
 import com.example.githubanalyzer.repository.RepoRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -29,31 +52,57 @@ class GitHubServiceTest {
     @Mock
     private ContributorRepository contributorRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private GitHubService gitHubService;
 
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ExecutorService crawlExecutor;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        crawlExecutor = Executors.newFixedThreadPool(4);
+        ReflectionTestUtils.setField(gitHubService, "crawlExecutor", crawlExecutor);
+        ReflectionTestUtils.setField(gitHubService, "userProfileCache", new UserProfileCache(60, 100));
+        CrawlPersister crawlPersister = new CrawlPersister();
+        ReflectionTestUtils.setField(crawlPersister, "repoRepository", repoRepository);
+        ReflectionTestUtils.setField(crawlPersister, "contributorRepository", contributorRepository);
+        ReflectionTestUtils.setField(crawlPersister, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(gitHubService, "crawlPersister", crawlPersister);
+        ReflectionTestUtils.setField(gitHubService, "meterRegistry", meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        crawlExecutor.shutdownNow();
     }
 
     @Test
     void testFetchAndSaveTopApacheRepos() throws Exception {
         // Mock the GitHub API responses
-        String reposResponse = getTestReposJson();
-        String contributorsResponse = getTestContributorsJson();
-        String userInfoResponse = getTestUserInfoJson();
+        List<GitHubRepo> reposResponse = objectMapper.readValue(getTestReposJson(), new TypeReference<>() {});
+        List<GitHubContributor> contributorsResponse = objectMapper.readValue(getTestContributorsJson(), new TypeReference<>() {});
+        GitHubUser userInfoResponse = objectMapper.readValue(getTestUserInfoJson(), GitHubUser.class);
 
         // Configure mocks
-        when(gitHubClient.getApacheRepos(anyInt())).thenReturn(reposResponse);
+        when(gitHubClient.getOrgRepoPages(anyString(), anyInt(), anyInt())).thenReturn(List.of(reposResponse).iterator());
         when(gitHubClient.getRepoContributors(anyString(), anyInt())).thenReturn(contributorsResponse);
         when(gitHubClient.getUserInfo(anyString())).thenReturn(userInfoResponse);
         
         // Mock repository save methods
-        when(repoRepository.save(any(RepoEntity.class))).thenAnswer(invocation -> {
-            RepoEntity entity = invocation.getArgument(0);
-            entity.setId(1L); // Simulate auto-generated ID
-            return entity;
+        when(repoRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<RepoEntity> entities = invocation.getArgument(0);
+            // Simulate auto-generated IDs
+            for (int i = 0; i < entities.size(); i++) {
+                entities.get(i).setId((long) (i + 1));
+            }
+            return entities;
         });
         
         when(contributorRepository.saveAll(anyList())).thenAnswer(invocation -> {
@@ -79,63 +128,236 @@ class GitHubServiceTest {
         assertEquals("Java", repo1.getLanguage());
         
         // Verify interactions with mocks
-        verify(gitHubClient).getApacheRepos(100);
+        verify(gitHubClient).getOrgRepoPages("apache", 100, 1);
         verify(gitHubClient, times(2)).getRepoContributors(anyString(), eq(10));
-        verify(gitHubClient, times(2)).getUserInfo(anyString());
-        verify(repoRepository, times(2)).save(any(RepoEntity.class));
-        verify(contributorRepository, times(2)).saveAll(anyList());
+        // Both repositories share the same contributor, whose profile is fetched once
+        verify(gitHubClient, times(1)).getUserInfo("garydgregory");
+        // All repositories and all contributors are written in one batch each
+        verify(repoRepository, times(1)).saveAll(argThat((List<RepoEntity> repos) -> repos.size() == 2));
+        verify(contributorRepository, times(1)).saveAll(argThat((List<ContributorEntity> contributors) ->
+            contributors.size() == 2 && contributors.stream().allMatch(c -> c.getRepo() != null)));
+        // Nothing was stored yet, so every row is an insert
+        assertEquals(new SyncReport(2, 0, 0, 2, 0, 0, 0), gitHubService.getLastSyncReport());
+        verify(eventPublisher).publishEvent(new SyncReport(2, 0, 0, 2, 0, 0, 0));
+
+        // Every stage was timed once and the written rows were counted by table
+        for (String stage : List.of("fetch", "rank", "enrich", "persist")) {
+            assertEquals(1, meterRegistry.get("github.crawl.stage").tag("stage", stage).timer().count(), stage);
+        }
+        assertEquals(2, meterRegistry.get("github.crawl.rows.written")
+            .tags("table", "repo", "operation", "inserted").counter().count());
+        assertEquals(2, meterRegistry.get("github.crawl.rows.written")
+            .tags("table", "contributor", "operation", "inserted").counter().count());
+        assertEquals(0, meterRegistry.get("github.crawl.rows.written")
+            .tags("table", "contributor", "operation", "deleted").counter().count());
     }
 
     @Test
-    void testGetAllRepos() {
-        // Mock repository response
-        RepoEntity repo1 = new RepoEntity();
-        repo1.setId(1L);
-        repo1.setFullName("apache/commons-lang");
-        
-        RepoEntity repo2 = new RepoEntity();
-        repo2.setId(2L);
-        repo2.setFullName("apache/commons-io");
-        
-        when(repoRepository.findAll()).thenReturn(Arrays.asList(repo1, repo2));
-        
+    void testCrawlRequestParametersAreApplied() throws Exception {
+        List<GitHubRepo> reposResponse = objectMapper.readValue(getTestReposJson(), new TypeReference<>() {});
+        List<GitHubContributor> contributorsResponse = objectMapper.readValue(getTestContributorsJson(), new TypeReference<>() {});
+        when(gitHubClient.getOrgRepoPages(anyString(), anyInt(), anyInt())).thenReturn(List.of(reposResponse).iterator());
+        when(gitHubClient.getRepoContributors(anyString(), anyInt())).thenReturn(contributorsResponse);
+        when(gitHubClient.getUserInfo(anyString())).thenReturn(objectMapper.readValue(getTestUserInfoJson(), GitHubUser.class));
+
+        CrawlRequest request = gitHubService.crawlRequest("apache", 250, 1, 3);
+        List<RepoEntity> result = gitHubService.fetchAndSaveTopRepos(request, CrawlProgress.NONE);
+
+        // Only the most starred repository is kept, and its organization is recorded
+        assertEquals(1, result.size());
+        assertEquals("apache/commons-lang", result.get(0).getFullName());
+        assertEquals("apache", result.get(0).getOrg());
+        verify(gitHubClient).getOrgRepoPages("apache", 100, 3);
+        verify(gitHubClient).getRepoContributors("apache/commons-lang", 3);
+    }
+
+    @Test
+    void testGraphQLBackendFetchesProfilesOfAllRepositoriesInOneBatch() throws Exception {
+        ReflectionTestUtils.setField(gitHubService, "profileBackend", ProfileBackend.GRAPHQL);
+        List<GitHubRepo> reposResponse = objectMapper.readValue(getTestReposJson(), new TypeReference<>() {});
+        when(gitHubClient.getOrgRepoPages(anyString(), anyInt(), anyInt())).thenReturn(List.of(reposResponse).iterator());
+        when(gitHubClient.getRepoContributors(eq("apache/commons-lang"), anyInt()))
+            .thenReturn(List.of(new GitHubContributor("alice", 30), new GitHubContributor("bob", 20)));
+        when(gitHubClient.getRepoContributors(eq("apache/commons-io"), anyInt()))
+            .thenReturn(List.of(new GitHubContributor("bob", 40), new GitHubContributor("carol", 10)));
+        when(gitHubClient.getUsersInfo(anyList())).thenAnswer(invocation -> {
+            List<String> logins = invocation.getArgument(0);
+            Map<String, GitHubUser> users = new HashMap<>();
+            logins.forEach(login -> users.put(login, new GitHubUser(login, "Location of " + login, null)));
+            return users;
+        });
+
+        List<RepoEntity> result = gitHubService.fetchAndSaveTopApacheRepos();
+
+        assertEquals(2, result.size());
+        verify(gitHubClient, times(1)).getUsersInfo(List.of("alice", "bob", "carol"));
+        verify(gitHubClient, never()).getUserInfo(anyString());
+        verify(contributorRepository).saveAll(argThat((List<ContributorEntity> contributors) ->
+            contributors.size() == 4 && contributors.stream().allMatch(c -> c.getLocation().equals("Location of " + c.getLogin()))));
+    }
+
+    @Test
+    void testContributorsWithoutLoginAreSkipped() throws Exception {
+        List<GitHubRepo> reposResponse = objectMapper.readValue(getTestReposJson(), new TypeReference<>() {});
+        when(gitHubClient.getOrgRepoPages(anyString(), anyInt(), anyInt())).thenReturn(List.of(reposResponse).iterator());
+        // Anonymous contributors have no login; two of them would collide on the same stored login
+        when(gitHubClient.getRepoContributors(anyString(), anyInt())).thenReturn(List.of(
+            new GitHubContributor(null, 50), new GitHubContributor("alice", 30), new GitHubContributor(null, 20)));
+        when(gitHubClient.getUserInfo(anyString())).thenReturn(new GitHubUser("alice", null, null));
+
+        gitHubService.fetchAndSaveTopRepos(gitHubService.crawlRequest("apache", null, 1, null), CrawlProgress.NONE);
+
+        verify(gitHubClient, times(1)).getUserInfo("alice");
+        verify(contributorRepository).saveAll(argThat((List<ContributorEntity> contributors) ->
+            contributors.size() == 1 && contributors.get(0).getLogin().equals("alice")));
+    }
+
+    @Test
+    void testRepositoryWithUnlistedContributorsIsKeptWithoutThem() throws Exception {
+        List<GitHubRepo> reposResponse = objectMapper.readValue(getTestReposJson(), new TypeReference<>() {});
+        when(gitHubClient.getUserInfo(anyString())).thenReturn(new GitHubUser("bob", null, null));
+
+        // Removed repository, or history too large to list
+        for (int status : List.of(403, 404, 422)) {
+            clearInvocations(contributorRepository);
+            when(gitHubClient.getOrgRepoPages(anyString(), anyInt(), anyInt())).thenReturn(List.of(reposResponse).iterator());
+            when(gitHubClient.getRepoContributors(eq("apache/commons-lang"), anyInt()))
+                .thenThrow(new GitHubApiException("/repos/apache/commons-lang/contributors", status, "{}"));
+            when(gitHubClient.getRepoContributors(eq("apache/commons-io"), anyInt()))
+                .thenReturn(List.of(new GitHubContributor("bob", 40)));
+
+            List<RepoEntity> result = gitHubService.fetchAndSaveTopRepos(
+                gitHubService.crawlRequest("apache", null, 2, null), CrawlProgress.NONE);
+
+            assertEquals(2, result.size(), "Status " + status);
+            verify(contributorRepository).saveAll(argThat((List<ContributorEntity> contributors) ->
+                contributors.size() == 1 && contributors.get(0).getRepo().getFullName().equals("apache/commons-io")));
+        }
+    }
+
+    @Test
+    void testRateLimitedContributorListFailsTheCrawl() throws Exception {
+        List<GitHubRepo> reposResponse = objectMapper.readValue(getTestReposJson(), new TypeReference<>() {});
+        when(gitHubClient.getOrgRepoPages(anyString(), anyInt(), anyInt())).thenReturn(List.of(reposResponse).iterator());
+        when(gitHubClient.getRepoContributors(anyString(), anyInt()))
+            .thenThrow(new GitHubApiException("/repos/apache/commons-lang/contributors", 403, "{}", true));
+
+        assertThrows(Exception.class, () -> gitHubService.fetchAndSaveTopRepos(
+            gitHubService.crawlRequest("apache", null, 2, null), CrawlProgress.NONE));
+        verify(contributorRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testCrawlRequestRejectsInvalidParameters() {
+        assertEquals(new CrawlRequest("apache", 100, 5, 10), gitHubService.crawlRequest("apache", null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> gitHubService.crawlRequest("apache/../users", null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> gitHubService.crawlRequest("apache", null, 0, null));
+        assertThrows(IllegalArgumentException.class, () -> gitHubService.crawlRequest("apache", null, null, 101));
+        assertEquals(500, gitHubService.crawlRequest("apache", null, 500, null).topRepos());
+        assertThrows(IllegalArgumentException.class, () -> gitHubService.crawlRequest("apache", null, 501, null));
+        assertThrows(IllegalArgumentException.class, () -> gitHubService.crawlRequest("apache", null, Integer.MAX_VALUE, null));
+        assertThrows(IllegalArgumentException.class, () -> gitHubService.crawlRequest("apache", 10_001, null, null));
+        // The whole organization is ranked up to the same cap
+        assertEquals(10_000, gitHubService.crawlRequest("apache", 0, null, null).reposToFetch());
+        assertEquals(10_000, gitHubService.crawlRequest("apache", -1, null, null).reposToFetch());
+    }
+
+    @Test
+    void testInvalidOrganizationListFailsStartup() {
+        gitHubService.validateCrawlConfiguration();
+
+        ReflectionTestUtils.setField(gitHubService, "orgs", List.of());
+        assertThrows(IllegalStateException.class, () -> gitHubService.validateCrawlConfiguration());
+        ReflectionTestUtils.setField(gitHubService, "orgs", List.of("apache", "not/an-org"));
+        assertThrows(IllegalStateException.class, () -> gitHubService.validateCrawlConfiguration());
+    }
+
+    @Test
+    void testGetReposReturnsOnePageAndTheCursorAfterIt() {
+        // Mock repository response, one row more than the page size
+        RepoSummary repo1 = new RepoSummary(1L, "apache/commons-lang", "apache", null, 300, 0, null, 0, null, 0, null, null);
+        RepoSummary repo2 = new RepoSummary(2L, "apache/commons-io", "apache", null, 200, 0, null, 0, null, 0, null, null);
+        RepoSummary repo3 = new RepoSummary(3L, "apache/commons-cli", "apache", null, 100, 0, null, 0, null, 0, null, null);
+        RepoFilter filter = new RepoFilter(null, "Java", null, null);
+
+        when(repoRepository.findRepoSummaryPage(Integer.MAX_VALUE, Long.MAX_VALUE, null, "Java", null, null, Limit.of(3)))
+            .thenReturn(Arrays.asList(repo1, repo2, repo3));
+
         // Execute the method under test
-        List<RepoEntity> result = gitHubService.getAllRepos();
-        
+        KeysetPage<RepoSummary> page = gitHubService.getRepos(filter, null, 2);
+
         // Verify the results
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals("apache/commons-lang", result.get(0).getFullName());
-        assertEquals("apache/commons-io", result.get(1).getFullName());
-        
-        // Verify interactions with mocks
-        verify(repoRepository).findAll();
+        assertEquals(List.of(repo1, repo2), page.items());
+        assertEquals(new PageCursor(200, 2L), PageCursor.decode(page.nextCursor()));
+
+        // The next page seeks past the last row
+        when(repoRepository.findRepoSummaryPage(200, 2L, null, "Java", null, null, Limit.of(3)))
+            .thenReturn(List.of(repo3));
+
+        KeysetPage<RepoSummary> last = gitHubService.getRepos(filter, page.nextCursor(), 2);
+
+        assertEquals(List.of(repo3), last.items());
+        assertNull(last.nextCursor());
+        verify(repoRepository, never()).findAll();
     }
 
     @Test
-    void testGetAllContributors() {
+    void testGetContributorsReturnsOnePage() {
         // Mock repository response
-        ContributorEntity contributor1 = new ContributorEntity();
-        contributor1.setId(1L);
-        contributor1.setLogin("user1");
-        
-        ContributorEntity contributor2 = new ContributorEntity();
-        contributor2.setId(2L);
-        contributor2.setLogin("user2");
-        
-        when(contributorRepository.findAll()).thenReturn(Arrays.asList(contributor1, contributor2));
-        
+        RepoWithContributorDTO contributor1 = new RepoWithContributorDTO(1L, "user1", 10, null, null, 1L, "apache/commons-lang");
+        RepoWithContributorDTO contributor2 = new RepoWithContributorDTO(2L, "user2", 5, null, null, 1L, "apache/commons-lang");
+        ContributorFilter filter = new ContributorFilter("apache/commons-lang", null, 5);
+
+        when(contributorRepository.findContributorPage(Integer.MAX_VALUE, Long.MAX_VALUE, "apache/commons-lang", null, 5, Limit.of(101)))
+            .thenReturn(Arrays.asList(contributor1, contributor2));
+
+        // Execute the method under test with the default page size
+        KeysetPage<RepoWithContributorDTO> page = gitHubService.getContributors(filter, null, null);
+
+        // Verify the results
+        assertEquals(2, page.items().size());
+        assertEquals("user1", page.items().get(0).login());
+        assertEquals("user2", page.items().get(1).login());
+        assertNull(page.nextCursor());
+        verify(contributorRepository, never()).findAll();
+    }
+
+    @Test
+    void testInvalidPageParametersAreRejected() {
+        RepoFilter filter = new RepoFilter(null, null, null, null);
+
+        assertThrows(IllegalArgumentException.class, () -> gitHubService.getRepos(filter, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> gitHubService.getRepos(filter, null, 1001));
+        assertThrows(IllegalArgumentException.class, () -> gitHubService.getRepos(filter, "not a cursor", null));
+        verifyNoInteractions(repoRepository);
+    }
+
+    @Test
+    void testLoadReadSnapshot() {
+        // Mock repository responses
+        RepoSummary repo1 = new RepoSummary(1L, "apache/commons-lang", "apache", "Lang", 300, 0, null, 0, null, 0, null, null);
+        RepoSummary repo2 = new RepoSummary(2L, "apache/commons-io", "apache", "IO", 200, 0, null, 0, null, 0, null, null);
+
+        when(repoRepository.findRepoSummaries()).thenReturn(Arrays.asList(repo1, repo2));
+        when(contributorRepository.findContributorTotals()).thenReturn(List.of(
+            new ContributorTotal("user1", 10, 2), new ContributorTotal("user2", 5, 1)));
+
         // Execute the method under test
-        List<ContributorEntity> result = gitHubService.getAllContributors();
-        
+        ReadSnapshot snapshot = gitHubService.loadReadSnapshot(3, "\"v3\"");
+
         // Verify the results
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals("user1", result.get(0).getLogin());
-        assertEquals("user2", result.get(1).getLogin());
-        
-        // Verify interactions with mocks
-        verify(contributorRepository).findAll();
+        assertEquals(3, snapshot.getVersion());
+        assertEquals("\"v3\"", snapshot.getETag());
+        assertEquals(List.of("apache/commons-lang", "apache/commons-io"),
+            snapshot.getTopRepos().stream().map(repo -> repo.get("name")).toList());
+        assertEquals(Map.of("user1", 10, "user2", 5), snapshot.getTopContributors());
+        assertEquals(List.of(new LeaderboardEntry(1, "user1", 10, 2), new LeaderboardEntry(2, "user2", 5, 1)),
+            snapshot.leaderboard(null, null));
+
+        // The listings are paged from the database, so only the small views are loaded
+        verify(repoRepository).findRepoSummaries();
+        verify(repoRepository, never()).findAll();
+        verify(repoRepository, never()).streamRepoContributorRows();
     }
 
     // Helper methods to provide test JSON data
@@ -0,0 +1,99 @@
+package com.example.githubanalyzer.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReadSnapshotCacheTest {
+
+    @Mock
+    private GitHubService githubService;
+
+    @InjectMocks
+    private ReadSnapshotCache cache;
+
+    private final Queue<Runnable> rebuilds = new ArrayDeque<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(cache, "rebuildExecutor", (Executor) rebuilds::add);
+        when(githubService.loadReadSnapshot(anyLong(), anyString())).thenAnswer(invocation ->
+            new ReadSnapshot(invocation.getArgument(0), invocation.getArgument(1), List.of(), Map.of(), List.of()));
+    }
+
+    @Test
+    void testReadsAreServedFromTheLoadedSnapshot() {
+        ReadSnapshot first = cache.current();
+        ReadSnapshot second = cache.current();
+
+        assertSame(first, second);
+        verify(githubService, times(1)).loadReadSnapshot(anyLong(), anyString());
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("loads"));
+        assertEquals(first.getETag(), cache.currentETag());
+    }
+
+    @Test
+    void testCommittedChangesAreRebuiltInTheBackground() {
+        ReadSnapshot before = cache.current();
+
+        cache.onSyncCommitted(new SyncReport(0, 1, 4, 0, 0, 10, 0));
+        cache.onSyncCommitted(new SyncReport(0, 1, 4, 0, 0, 10, 0));
+
+        // Until the rebuild runs, reads keep the previous snapshot while the listings already use the new tag
+        assertSame(before, cache.current());
+        assertNotEquals(before.getETag(), cache.currentETag());
+        assertEquals(1, rebuilds.size(), "Commits before the rebuild runs share one rebuild");
+
+        rebuilds.poll().run();
+        ReadSnapshot after = cache.current();
+
+        assertNotSame(before, after);
+        assertEquals(3, after.getVersion());
+        assertEquals(cache.currentETag(), after.getETag());
+        assertTrue(after.getETag().startsWith("\"") && after.getETag().endsWith("\""));
+        verify(githubService, times(2)).loadReadSnapshot(anyLong(), anyString());
+        assertTrue(rebuilds.isEmpty());
+    }
+
+    @Test
+    void testFailedRebuildKeepsServingThePreviousSnapshot() {
+        ReadSnapshot before = cache.current();
+        when(githubService.loadReadSnapshot(anyLong(), anyString())).thenThrow(new IllegalStateException("database down"));
+
+        cache.onSyncCommitted(new SyncReport(0, 1, 4, 0, 0, 10, 0));
+        rebuilds.poll().run();
+
+        assertSame(before, cache.current());
+        // The stale read scheduled another attempt
+        assertEquals(1, rebuilds.size());
+    }
+
+    @Test
+    void testSyncWithoutChangesKeepsTheSnapshot() {
+        ReadSnapshot before = cache.current();
+
+        cache.onSyncCommitted(new SyncReport(0, 0, 5, 0, 0, 50, 0));
+
+        assertSame(before, cache.current());
+        assertTrue(rebuilds.isEmpty());
+        verify(githubService, times(1)).loadReadSnapshot(anyLong(), anyString());
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.githubanalyzer.service;
+
+import com.example.githubanalyzer.dto.LeaderboardEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadSnapshotTest {
+
+    @Test
+    void testLeaderboardIsSlicedByLimitAndOffset() {
+        List<LeaderboardEntry> leaderboard = List.of(new LeaderboardEntry(1, "user1", 30, 2),
+            new LeaderboardEntry(2, "user2", 20, 1), new LeaderboardEntry(2, "user3", 20, 3));
+        ReadSnapshot snapshot = new ReadSnapshot(1, "\"v1\"", List.of(), Map.of(), leaderboard);
+
+        assertEquals(leaderboard, snapshot.leaderboard(null, null));
+        assertEquals(leaderboard.subList(1, 2), snapshot.leaderboard(1, 1));
+        assertEquals(List.of(), snapshot.leaderboard(10, 3));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.leaderboard(10, -1));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.leaderboard(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.leaderboard(1001, 0));
+    }
+
+    @Test
+    void testViewsAreImmutable() {
+        ReadSnapshot snapshot = new ReadSnapshot(1, "\"v1\"", List.of(Map.of("name", "test/repo1")),
+            Map.of("user1", 1), List.of());
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getTopRepos().get(0).put("stars", 1));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getTopContributors().put("user2", 2));
+    }
+}
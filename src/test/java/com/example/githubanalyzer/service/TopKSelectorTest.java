@@ -0,0 +1,110 @@
+package com.example.githubanalyzer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKSelectorTest {
+
+    private record Item(int id, int score) {
+    }
+
+    @Test
+    void testMatchesStableSortAndLimit() {
+        Random random = new Random(42);
+        int[][] sizes = {{5, 100}, {10, 1_000}, {100, 100_000}, {1, 50}, {200, 150}};
+
+        for (int[] size : sizes) {
+            int k = size[0];
+            int n = size[1];
+            // A narrow score range forces plenty of ties
+            List<Item> items = IntStream.range(0, n)
+                .mapToObj(i -> new Item(i, random.nextInt(n / 4 + 1)))
+                .collect(Collectors.toList());
+
+            List<Item> expected = new ArrayList<>(items);
+            expected.sort(Comparator.comparingInt(Item::score).reversed());
+            expected = expected.subList(0, Math.min(k, n));
+
+            TopKSelector<Item> selector = new TopKSelector<>(k, Item::score);
+            selector.offerAll(items);
+
+            assertEquals(expected, selector.result(), "k=" + k + ", n=" + n);
+            assertEquals(n, selector.getOfferedCount());
+        }
+    }
+
+    @Test
+    void testEqualScoresKeepEncounterOrder() {
+        List<Item> items = List.of(new Item(1, 7), new Item(2, 9), new Item(3, 7), new Item(4, 7));
+
+        List<Item> top = items.stream().collect(TopKSelector.collector(3, Item::score));
+
+        assertEquals(List.of(new Item(2, 9), new Item(1, 7), new Item(3, 7)), top);
+    }
+
+    @Test
+    void testParallelStreamMatchesSequential() {
+        Random random = new Random(7);
+        List<Item> items = IntStream.range(0, 100_000)
+            .mapToObj(i -> new Item(i, random.nextInt(1_000)))
+            .collect(Collectors.toList());
+
+        List<Item> expected = new ArrayList<>(items);
+        expected.sort(Comparator.comparingInt(Item::score).reversed());
+
+        for (int k : new int[]{0, 1, 10, 500}) {
+            List<Item> top = items.parallelStream().collect(TopKSelector.collector(k, Item::score));
+            assertEquals(expected.subList(0, k), top, "k=" + k);
+        }
+    }
+
+    @Test
+    void testMergeCountsOfferedItems() {
+        TopKSelector<Item> left = new TopKSelector<>(2, Item::score);
+        left.offerAll(List.of(new Item(1, 5), new Item(2, 1), new Item(3, 4)));
+        TopKSelector<Item> right = new TopKSelector<>(2, Item::score);
+        right.offerAll(List.of(new Item(4, 5), new Item(5, 9), new Item(6, 2)));
+
+        left.merge(right);
+
+        assertEquals(List.of(new Item(5, 9), new Item(1, 5)), left.result());
+        assertEquals(6, left.getOfferedCount());
+    }
+
+    @Test
+    void testFewerItemsThanK() {
+        TopKSelector<Item> selector = new TopKSelector<>(5, Item::score);
+        selector.offer(new Item(1, 3));
+        selector.offer(new Item(2, 8));
+
+        assertEquals(List.of(new Item(2, 8), new Item(1, 3)), selector.result());
+    }
+
+    @Test
+    void testZeroK() {
+        TopKSelector<Item> selector = new TopKSelector<>(0, Item::score);
+        selector.offer(new Item(1, 3));
+
+        assertTrue(selector.result().isEmpty());
+        assertEquals(1, selector.getOfferedCount());
+    }
+
+    @Test
+    void testResultCanBeTakenIncrementally() {
+        TopKSelector<Item> selector = new TopKSelector<>(2, Item::score);
+        selector.offer(new Item(1, 1));
+        selector.offer(new Item(2, 2));
+        assertEquals(List.of(new Item(2, 2), new Item(1, 1)), selector.result());
+
+        selector.offer(new Item(3, 3));
+        assertEquals(List.of(new Item(3, 3), new Item(2, 2)), selector.result());
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.githubanalyzer.service;
+
+import com.example.githubanalyzer.client.GitHubUser;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserProfileCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private CompletableFuture<GitHubUser> load(String login) {
+        loads.incrementAndGet();
+        return CompletableFuture.completedFuture(new GitHubUser(login, "Location", "Company"));
+    }
+
+    @Test
+    void testRepeatedLookupIsServedFromCache() {
+        UserProfileCache cache = new UserProfileCache(Duration.ofMinutes(10), 10, clock::get);
+
+        GitHubUser first = cache.get("user1", this::load).join();
+        GitHubUser second = cache.get("user1", this::load).join();
+
+        assertEquals("user1", second.login());
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+
+        UserProfileCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.5, stats.hitRate(), 0.0001);
+    }
+
+    @Test
+    void testBatchLookupLoadsOnlyMissingProfilesInOneCall() {
+        UserProfileCache cache = new UserProfileCache(Duration.ofMinutes(10), 10, clock::get);
+        cache.get("user1", this::load).join();
+        List<List<String>> batches = new ArrayList<>();
+
+        Map<String, CompletableFuture<GitHubUser>> profiles = cache.getAll(List.of("user1", "user2", "user3", "user2"), logins -> {
+            batches.add(logins);
+            Map<String, GitHubUser> loaded = new HashMap<>();
+            logins.forEach(login -> loaded.put(login, new GitHubUser(login, "Batch", "Company")));
+            return CompletableFuture.completedFuture(loaded);
+        });
+
+        assertEquals(List.of("user1", "user2", "user3"), List.copyOf(profiles.keySet()));
+        assertEquals(List.of(List.of("user2", "user3")), batches);
+        assertEquals("Location", profiles.get("user1").join().location());
+        assertEquals("Batch", profiles.get("user3").join().location());
+
+        // Batch-loaded profiles are cached like single ones
+        cache.get("user3", this::load).join();
+        assertEquals(1, loads.get());
+        assertEquals(2, cache.getStats().hits());
+    }
+
+    @Test
+    void testBatchLookupFailsProfilesMissingFromTheBatch() {
+        UserProfileCache cache = new UserProfileCache(Duration.ofMinutes(10), 10, clock::get);
+
+        Map<String, CompletableFuture<GitHubUser>> profiles = cache.getAll(List.of("user1"),
+            logins -> CompletableFuture.completedFuture(Map.of()));
+
+        assertThrows(CompletionException.class, () -> profiles.get("user1").join());
+        // Nothing is cached, the next lookup loads again
+        cache.get("user1", this::load).join();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testExpiredEntryIsReloaded() {
+        UserProfileCache cache = new UserProfileCache(Duration.ofMinutes(10), 10, clock::get);
+
+        cache.get("user1", this::load).join();
+        clock.addAndGet(Duration.ofMinutes(10).toNanos());
+        cache.get("user1", this::load).join();
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getStats().expirations());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        UserProfileCache cache = new UserProfileCache(Duration.ofMinutes(10), 2, clock::get);
+
+        cache.get("user1", this::load).join();
+        cache.get("user2", this::load).join();
+        cache.get("user1", this::load).join(); // user2 is now the least recently used
+        cache.get("user3", this::load).join();
+
+        assertEquals(3, loads.get());
+        cache.get("user1", this::load).join();
+        assertEquals(3, loads.get(), "user1 should still be cached");
+        cache.get("user2", this::load).join();
+        assertEquals(4, loads.get(), "user2 should have been evicted");
+
+        UserProfileCache.Stats stats = cache.getStats();
+        assertEquals(2, stats.size());
+        assertEquals(2, stats.evictions());
+    }
+
+    @Test
+    void testConcurrentLookupsShareOneLoad() {
+        UserProfileCache cache = new UserProfileCache(Duration.ofMinutes(10), 10, clock::get);
+        CompletableFuture<GitHubUser> pendingLoad = new CompletableFuture<>();
+
+        CompletableFuture<GitHubUser> first = cache.get("user1", login -> {
+            loads.incrementAndGet();
+            return pendingLoad;
+        });
+        CompletableFuture<GitHubUser> second = cache.get("user1", this::load);
+
+        assertFalse(second.isDone());
+        pendingLoad.complete(new GitHubUser("user1", "Location", "Company"));
+
+        assertEquals("user1", first.join().login());
+        assertEquals("user1", second.join().login());
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getStats().coalesced());
+    }
+
+    @Test
+    void testFailedLoadIsNotCached() {
+        UserProfileCache cache = new UserProfileCache(Duration.ofMinutes(10), 10, clock::get);
+
+        CompletableFuture<GitHubUser> failed = cache.get("user1",
+            login -> CompletableFuture.failedFuture(new IllegalStateException("boom")));
+        assertTrue(failed.isCompletedExceptionally());
+
+        cache.get("user1", this::load).join();
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getStats().size());
+    }
+}